@@ -0,0 +1,48 @@
+package hexlet.code.benchmark;
+
+import hexlet.code.check.PageExtractor;
+import hexlet.code.check.PageSummary;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExtractionBenchmark {
+    @Param({"article.html", "landing.html", "cp1251.html"})
+    private String page;
+
+    private byte[] body;
+    private PageExtractor extractor;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/corpus/" + page)) {
+            body = inputStream.readAllBytes();
+        }
+        extractor = new PageExtractor(1024 * 1024);
+    }
+
+    @Benchmark
+    public PageSummary extract() throws IOException {
+        return extractor.extract(new ByteArrayInputStream(body), null);
+    }
+
+    @Benchmark
+    public Document jsoupParse() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), null, "");
+    }
+}
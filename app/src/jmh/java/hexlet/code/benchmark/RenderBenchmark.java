@@ -0,0 +1,68 @@
+package hexlet.code.benchmark;
+
+import gg.jte.ContentType;
+import gg.jte.TemplateEngine;
+import gg.jte.output.StringOutput;
+import gg.jte.output.Utf8ByteOutput;
+import gg.jte.resolve.ResourceCodeResolver;
+import hexlet.code.dto.UrlsPage;
+import hexlet.code.model.Url;
+import hexlet.code.model.UrlCheck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RenderBenchmark {
+    @Param({"50", "500"})
+    private int urls;
+
+    private TemplateEngine templateEngine;
+    private UrlsPage page;
+
+    @Setup
+    public void setUp() {
+        var codeResolver = new ResourceCodeResolver("templates", getClass().getClassLoader());
+        templateEngine = TemplateEngine.create(codeResolver, ContentType.Html);
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Url> list = new ArrayList<>();
+        for (int id = 1; id <= urls; id++) {
+            var url = new Url("https://site-" + id + ".example.com", now);
+            url.setId(id);
+            var check = new UrlCheck(200, null, null, null, now);
+            check.setId(id);
+            url.setLastCheck(check);
+            list.add(url);
+        }
+        page = new UrlsPage(list, 0, urls, (long) urls);
+        // the first render compiles the template, keep it out of the measurement
+        showListUrls();
+    }
+
+    @Benchmark
+    public String showListUrls() {
+        var output = new StringOutput();
+        templateEngine.render("urls/showListUrls.jte", Map.of("page", page), output);
+        return output.toString();
+    }
+    @Benchmark
+    public Utf8ByteOutput showListUrlsUtf8() {
+        var output = new Utf8ByteOutput();
+        templateEngine.render("urls/showListUrls.jte", Map.of("page", page), output);
+        return output;
+    }
+}
@@ -0,0 +1,92 @@
+package hexlet.code.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import hexlet.code.model.Url;
+import hexlet.code.model.UrlCheck;
+import hexlet.code.repository.BaseRepository;
+import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.Migrations;
+import hexlet.code.repository.UrlRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private HikariDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        var hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl("jdbc:h2:mem:bench" + rows + ";DB_CLOSE_DELAY=-1");
+        dataSource = new HikariDataSource(hikariConfig);
+        Migrations.migrate(dataSource);
+        BaseRepository.setDataSource(dataSource);
+
+        try (var conn = dataSource.getConnection(); var statement = conn.createStatement()) {
+            statement.execute("INSERT INTO urls (name, created_at) "
+                    + "SELECT 'https://site-' || X || '.example.com', LOCALTIMESTAMP "
+                    + "FROM SYSTEM_RANGE(1, " + rows + ")");
+            statement.execute("INSERT INTO url_checks (url_id, status_code, title, h1, description, created_at) "
+                    + "SELECT id, 200, 'Title', 'Heading', 'Description', created_at FROM urls");
+            statement.execute("UPDATE urls SET last_check_id = "
+                    + "(SELECT MAX(c.id) FROM url_checks c WHERE c.url_id = urls.id), "
+                    + "last_status_code = 200, last_checked_at = created_at");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (var conn = dataSource.getConnection(); var statement = conn.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Url> getEntities() throws SQLException {
+        return UrlRepository.getEntities();
+    }
+
+    @Benchmark
+    public List<Url> getPage() throws SQLException {
+        return UrlRepository.getPage(randomId() - 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<Url> find() throws SQLException {
+        return UrlRepository.find(randomId());
+    }
+
+    @Benchmark
+    public Optional<UrlCheck> findLastCheck() throws SQLException {
+        return CheckRepository.findLastCheck(randomId());
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
@@ -5,91 +5,205 @@ import com.zaxxer.hikari.HikariDataSource;
 import gg.jte.ContentType;
 import gg.jte.TemplateEngine;
 import gg.jte.resolve.ResourceCodeResolver;
+import hexlet.code.check.CheckCache;
+import hexlet.code.check.CheckEngine;
+import hexlet.code.check.CheckExtractor;
+import hexlet.code.check.CheckJobs;
+import hexlet.code.check.CheckScheduler;
+import hexlet.code.check.HttpPageFetcher;
+import hexlet.code.check.PageExtractor;
+import hexlet.code.check.PoliteFetcher;
+import hexlet.code.check.RetentionTask;
+import hexlet.code.controllers.ApiController;
 import hexlet.code.controllers.RootController;
+import hexlet.code.controllers.StatusController;
 import hexlet.code.controllers.UrlsController;
+import hexlet.code.metrics.HttpMetrics;
+import hexlet.code.metrics.Metrics;
+import hexlet.code.metrics.PoolMetrics;
 import hexlet.code.repository.BaseRepository;
+import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.CheckWriter;
+import hexlet.code.repository.Migrations;
+import hexlet.code.repository.UrlReadModel;
+import hexlet.code.repository.UrlRepository;
+import hexlet.code.util.AdmissionController;
 import hexlet.code.util.NamedRoutes;
+import hexlet.code.util.PageCache;
+import hexlet.code.util.Templates;
 import io.javalin.Javalin;
-import io.javalin.rendering.template.JavalinJte;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
 
 @Slf4j
 public class App {
 
-    public static int getPort() {
-        String port = System.getenv().getOrDefault("PORT", "7070");
-        return Integer.parseInt(port);
-    }
-
-    public static String getUrl() {
-        return System.getenv().getOrDefault("JDBC_DATABASE_URL", "jdbc:h2:mem:project;DB_CLOSE_DELAY=-1");
-    }
-
     private static TemplateEngine createTemplateEngine() {
+        if (AppConfig.isTemplatesPrecompiled()) {
+            var templateEngine = TemplateEngine.createPrecompiled(ContentType.Html);
+            templateEngine.setBinaryStaticContent(true);
+            return templateEngine;
+        }
         ClassLoader classLoader = App.class.getClassLoader();
         ResourceCodeResolver codeResolver = new ResourceCodeResolver("templates", classLoader);
         return TemplateEngine.create(codeResolver, ContentType.Html);
     }
 
-    public static Javalin getApp() throws IOException {
+    private static HikariDataSource createDataSource(PoolMetrics poolMetrics) {
         var hikariConfig = new HikariConfig();
 
-        hikariConfig.setMinimumIdle(5);
-        hikariConfig.setMaximumPoolSize(10);
-
-        hikariConfig.setJdbcUrl(getUrl());
+        hikariConfig.setPoolName("app");
+        hikariConfig.setMinimumIdle(AppConfig.getDbMinIdle());
+        hikariConfig.setMaximumPoolSize(AppConfig.getDbMaxPoolSize());
+        hikariConfig.setConnectionTimeout(AppConfig.getDbConnectionTimeout().toMillis());
+        hikariConfig.setIdleTimeout(AppConfig.getDbIdleTimeout().toMillis());
+        hikariConfig.setMaxLifetime(AppConfig.getDbMaxLifetime().toMillis());
+        hikariConfig.setLeakDetectionThreshold(AppConfig.getDbLeakDetectionThreshold().toMillis());
+        hikariConfig.setMetricsTrackerFactory(poolMetrics);
+
+        hikariConfig.setJdbcUrl(AppConfig.getUrl());
+        if (AppConfig.getDbUsername() != null) {
+            hikariConfig.setUsername(AppConfig.getDbUsername());
+            hikariConfig.setPassword(AppConfig.getDbPassword());
+        }
+        // driver properties are passed through to the connection, H2 rejects the ones it does not know
+        if (AppConfig.getUrl().startsWith("jdbc:postgresql:")) {
+            hikariConfig.addDataSourceProperty("prepareThreshold", AppConfig.getDbPrepareThreshold());
+            hikariConfig.addDataSourceProperty("preparedStatementCacheQueries",
+                    AppConfig.getDbPreparedStatementCacheSize());
+        }
 
-        var dataSource = new HikariDataSource(hikariConfig);
+        return new HikariDataSource(hikariConfig);
+    }
 
-        var sql = readResources();
-        log.info(sql);
+    private static void registerMetrics(CheckCache checkCache, UrlReadModel urlReadModel) {
+        Metrics.counter("check_cache_requests_total", "Check cache lookups", Metrics.labels("result", "hit"),
+                checkCache::getHits);
+        Metrics.counter("check_cache_requests_total", "Check cache lookups", Metrics.labels("result", "miss"),
+                checkCache::getMisses);
+        Metrics.counter("check_cache_evictions_total", "Entries evicted from the check cache", "",
+                checkCache::getEvictions);
+        Metrics.gauge("check_cache_hit_ratio", "Share of check cache lookups served from the cache", "", () -> {
+            long lookups = checkCache.getHits() + checkCache.getMisses();
+            return lookups == 0 ? 0 : (double) checkCache.getHits() / lookups;
+        });
+        Metrics.counter("url_read_model_requests_total", "Url read model lookups", Metrics.labels("result", "hit"),
+                urlReadModel::getHits);
+        Metrics.counter("url_read_model_requests_total", "Url read model lookups", Metrics.labels("result", "miss"),
+                urlReadModel::getMisses);
+        Metrics.counter("url_read_model_evictions_total", "Urls evicted from the read model", "",
+                urlReadModel::getEvictions);
+        Metrics.gauge("url_read_model_size", "Urls held by the read model", "", urlReadModel::size);
+    }
 
-        try (Connection conn = dataSource.getConnection();
-             Statement statement = conn.createStatement()) {
-            statement.execute(sql);
-            log.info("Connected to the database");
-        } catch (SQLException e) {
-            log.error(e.getMessage());
-        }
+    private static List<CheckExtractor> loadCheckExtractors() {
+        Set<String> enabled = AppConfig.getCheckExtractors();
+        return ServiceLoader.load(CheckExtractor.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .filter(extractor -> enabled.contains("all") || enabled.contains(extractor.name()))
+                .toList();
+    }
 
-        BaseRepository.dataSource = dataSource;
+    public static Javalin getApp() throws IOException, SQLException {
+        var poolMetrics = new PoolMetrics();
+        var dataSource = createDataSource(poolMetrics);
+
+        Migrations.migrate(dataSource);
+        log.info("Connected to the database");
+
+        BaseRepository.setDataSource(dataSource);
+        Templates.setTemplateEngine(createTemplateEngine());
+        StatusController.setPoolMetrics(poolMetrics);
+        var httpFetcher = new HttpPageFetcher(AppConfig.getCheckConnectTimeout(), AppConfig.getCheckRequestTimeout(),
+                AppConfig.getCheckMaxRedirects());
+        var politeFetcher = new PoliteFetcher(httpFetcher, AppConfig.getHostRate(), AppConfig.getHostBurst(),
+                AppConfig.getCircuitFailures(), AppConfig.getCircuitOpenDuration(), AppConfig.getHostMaxWait());
+        CheckRepository.setPageFetcher(politeFetcher);
+        StatusController.setPoliteFetcher(politeFetcher);
+        CheckRepository.setPageExtractor(new PageExtractor(AppConfig.getCheckMaxBytes(),
+                AppConfig.isCheckFingerprints(), loadCheckExtractors()));
+        CheckRepository.setStoreOnChange(AppConfig.isCheckStoreOnChange());
+        CheckRepository.setSimHashDistance(AppConfig.getCheckSimHashDistance());
+        var checkCache = new CheckCache(AppConfig.getCheckCacheSize(), AppConfig.getCheckCacheTtl(),
+                AppConfig.getCheckCacheMaxTtl());
+        CheckRepository.setCheckCache(checkCache);
+        var urlReadModel = new UrlReadModel(AppConfig.getUrlReadModelSize());
+        UrlRepository.setReadModel(urlReadModel);
+        registerMetrics(checkCache, urlReadModel);
+        var checkWriter = new CheckWriter(AppConfig.getCheckWriteQueueSize(), AppConfig.getCheckWriteBatchSize(),
+                AppConfig.getCheckWriteInterval());
+        var checkEngine = new CheckEngine(AppConfig.getCheckConcurrency(), AppConfig.getCheckPerHostLimit(),
+                checkWriter);
+        UrlsController.setCheckEngine(checkEngine);
+        UrlsController.setCheckAllChunkSize(AppConfig.getCheckAllChunkSize());
+        var checkJobs = new CheckJobs(AppConfig.getCheckJobWorkers(), AppConfig.getCheckJobQueueSize(),
+                AppConfig.getCheckJobHistory(), checkWriter);
+        UrlsController.setCheckJobs(checkJobs);
+        UrlsController.setAsyncChecks(AppConfig.isAsyncChecks());
+        UrlsController.setPageCache(new PageCache(AppConfig.getPageCacheSize(), AppConfig.getPageCacheTtl()));
+        var apiController = new ApiController(AppConfig.getApiMaxExports());
+        var checkScheduler = new CheckScheduler(checkEngine, AppConfig.getCheckInterval(),
+                AppConfig.getCheckRetryDelay(), AppConfig.getCheckJitter(), AppConfig.getSchedulerBatchSize(),
+                AppConfig.getSchedulerPollInterval(),
+                AppConfig.getCheckRequestTimeout().plus(AppConfig.getHostMaxWait()));
+
+        var retentionTask = new RetentionTask(AppConfig.getCheckRetentionDays(), AppConfig.getRetentionBatchSize());
+
+        var admission = new AdmissionController(AppConfig.getRouteInFlightLimit(),
+                AppConfig.getMaxAwaitingConnections(),
+                () -> dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection(), checkJobs::isSaturated);
 
         var app = Javalin.create(config -> {
+            config.useVirtualThreads = AppConfig.isVirtualThreads();
+            config.http.gzipOnlyCompression();
+            config.events(event -> {
+                if (AppConfig.isSchedulerEnabled()) {
+                    event.serverStarted(checkScheduler::start);
+                }
+                if (AppConfig.isRetentionEnabled()) {
+                    event.serverStarted(() -> retentionTask.start(AppConfig.getRetentionPeriod()));
+                }
+                event.serverStopping(checkScheduler::close);
+                event.serverStopping(retentionTask::close);
+                event.serverStopping(checkJobs::close);
+                event.serverStopped(checkWriter::close);
+            });
             config.bundledPlugins.enableDevLogging();
-            config.fileRenderer(new JavalinJte(createTemplateEngine()));
         });
 
         app.before(ctx -> {
             ctx.contentType("text/html; charset=utf-8");
         });
+        app.before(HttpMetrics::start);
+        app.beforeMatched(admission::before);
+        app.after(admission::after);
+        app.after(HttpMetrics::finish);
 
         app.get(NamedRoutes.rootPath(), RootController::index);
         app.post(NamedRoutes.listUrlsPath(), UrlsController::create);
         app.get(NamedRoutes.listUrlsPath(), UrlsController::showListUrls);
+        app.post(NamedRoutes.urlsChecksPath(), UrlsController::checkAll);
+        app.post(NamedRoutes.importUrlsPath(), UrlsController::importUrls);
         app.get(NamedRoutes.urlPath("{id}"), UrlsController::showUrl);
         app.post(NamedRoutes.urlCheckPath("{id}"), UrlsController::saveCheckUrl);
+        app.get(NamedRoutes.checkJobPath("{id}"), UrlsController::showCheckJob);
+        app.get(NamedRoutes.apiUrlsPath(), ApiController::listUrls);
+        app.get(NamedRoutes.apiUrlChecksPath("{id}"), ApiController::listChecks);
+        app.get(NamedRoutes.apiChecksExportPath(), apiController::exportChecks);
+        app.get(NamedRoutes.hostsStatusPath(), StatusController::hosts);
+        app.get(NamedRoutes.poolStatusPath(), StatusController::pool);
+        app.get(NamedRoutes.metricsPath(), StatusController::metrics);
         return app;
     }
 
-    private static String readResources() throws IOException {
-        var inputStream = App.class.getClassLoader().getResourceAsStream("schema.sql");
-        assert inputStream != null;
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            return reader.lines().collect(Collectors.joining("\n"));
-        }
-    }
-
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, SQLException {
         var app = getApp();
-        app.start(getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(app::stop));
+        app.start(AppConfig.getPort());
     }
 }
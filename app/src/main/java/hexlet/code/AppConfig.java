@@ -0,0 +1,304 @@
+package hexlet.code;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class AppConfig {
+    private static final Properties PROPERTIES = load("application.properties");
+
+    public static String get(String key, String defaultValue) {
+        String env = System.getenv(key.toUpperCase().replace('.', '_'));
+        if (env != null) {
+            return env;
+        }
+        return PROPERTIES.getProperty(key, defaultValue);
+    }
+
+    private static Properties load(String name) {
+        var properties = new Properties();
+        try (InputStream inputStream = AppConfig.class.getClassLoader().getResourceAsStream(name)) {
+            if (inputStream != null) {
+                properties.load(inputStream);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + name, e);
+        }
+        return properties;
+    }
+
+    public static int getPort() {
+        String port = get("port", "7070");
+        return Integer.parseInt(port);
+    }
+
+    public static String getUrl() {
+        return get("jdbc.database.url", "jdbc:h2:mem:project;DB_CLOSE_DELAY=-1");
+    }
+
+    public static boolean isTemplatesPrecompiled() {
+        return Boolean.parseBoolean(get("jte.precompiled", "false"));
+    }
+
+    public static int getPageCacheSize() {
+        String size = get("page.cache.size", "1000");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getPageCacheTtl() {
+        String seconds = get("page.cache.ttl", "5");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static int getDbMaxPoolSize() {
+        String size = get("db.pool.max.size", "10");
+        return Integer.parseInt(size);
+    }
+
+    public static int getApiMaxExports() {
+        String exports = get("api.max.exports", "2");
+        return Integer.parseInt(exports);
+    }
+
+    public static int getDbMinIdle() {
+        String size = get("db.pool.min.idle", "5");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getDbConnectionTimeout() {
+        String millis = get("db.connection.timeout.ms", "30000");
+        return Duration.ofMillis(Long.parseLong(millis));
+    }
+
+    public static Duration getDbIdleTimeout() {
+        String millis = get("db.idle.timeout.ms", "600000");
+        return Duration.ofMillis(Long.parseLong(millis));
+    }
+
+    public static Duration getDbMaxLifetime() {
+        String millis = get("db.max.lifetime.ms", "1800000");
+        return Duration.ofMillis(Long.parseLong(millis));
+    }
+
+    public static Duration getDbLeakDetectionThreshold() {
+        String millis = get("db.leak.detection.ms", "0");
+        return Duration.ofMillis(Long.parseLong(millis));
+    }
+
+    public static String getDbUsername() {
+        return get("db.username", null);
+    }
+
+    public static String getDbPassword() {
+        return get("db.password", null);
+    }
+
+    public static int getDbPrepareThreshold() {
+        String threshold = get("db.prepare.threshold", "5");
+        return Integer.parseInt(threshold);
+    }
+
+    public static int getDbPreparedStatementCacheSize() {
+        String size = get("db.prepared.statement.cache.size", "256");
+        return Integer.parseInt(size);
+    }
+
+    public static int getCheckConcurrency() {
+        String concurrency = get("check.concurrency", "64");
+        return Integer.parseInt(concurrency);
+    }
+
+    public static int getCheckPerHostLimit() {
+        String limit = get("check.per.host", "2");
+        return Integer.parseInt(limit);
+    }
+
+    public static int getCheckAllChunkSize() {
+        String size = get("check.all.chunk", "500");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getCheckConnectTimeout() {
+        String seconds = get("check.connect.timeout", "5");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static Duration getCheckRequestTimeout() {
+        String seconds = get("check.request.timeout", "10");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static int getCheckMaxRedirects() {
+        String redirects = get("check.max.redirects", "5");
+        return Integer.parseInt(redirects);
+    }
+
+    public static int getCheckMaxBytes() {
+        String bytes = get("check.max.bytes", "1048576");
+        return Integer.parseInt(bytes);
+    }
+
+    public static int getCheckCacheSize() {
+        String size = get("check.cache.size", "10000");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getCheckCacheTtl() {
+        String seconds = get("check.cache.ttl", "60");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static Duration getCheckCacheMaxTtl() {
+        String seconds = get("check.cache.max.ttl", "3600");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static int getCheckWriteQueueSize() {
+        String size = get("check.write.queue", "10000");
+        return Integer.parseInt(size);
+    }
+
+    public static int getCheckWriteBatchSize() {
+        String size = get("check.write.batch", "100");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getCheckWriteInterval() {
+        String millis = get("check.write.interval.ms", "200");
+        return Duration.ofMillis(Long.parseLong(millis));
+    }
+
+    public static boolean isSchedulerEnabled() {
+        return Boolean.parseBoolean(get("scheduler.enabled", "false"));
+    }
+
+    public static Duration getCheckInterval() {
+        String minutes = get("check.interval.minutes", "1440");
+        return Duration.ofMinutes(Long.parseLong(minutes));
+    }
+
+    public static Duration getCheckRetryDelay() {
+        String minutes = get("check.retry.minutes", "5");
+        return Duration.ofMinutes(Long.parseLong(minutes));
+    }
+
+    public static double getCheckJitter() {
+        String jitter = get("check.jitter", "0.1");
+        return Double.parseDouble(jitter);
+    }
+
+    public static int getSchedulerBatchSize() {
+        String size = get("scheduler.batch", "100");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getSchedulerPollInterval() {
+        String seconds = get("scheduler.poll.seconds", "30");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static boolean isCheckFingerprints() {
+        return Boolean.parseBoolean(get("check.fingerprints", String.valueOf(isCheckStoreOnChange())));
+    }
+
+    public static Set<String> getCheckExtractors() {
+        String names = get("check.extractors", "all");
+        return Arrays.stream(names.split(",")).map(String::trim).collect(Collectors.toSet());
+    }
+
+    public static boolean isCheckStoreOnChange() {
+        return Boolean.parseBoolean(get("check.store.on.change", "false"));
+    }
+
+    public static int getCheckSimHashDistance() {
+        String distance = get("check.simhash.distance", "3");
+        return Integer.parseInt(distance);
+    }
+
+    public static int getUrlReadModelSize() {
+        String size = get("url.read.model.size", "0");
+        return Integer.parseInt(size);
+    }
+
+    public static boolean isRetentionEnabled() {
+        return Boolean.parseBoolean(get("retention.enabled", "false"));
+    }
+
+    public static int getCheckRetentionDays() {
+        String days = get("check.retention.days", "90");
+        return Integer.parseInt(days);
+    }
+
+    public static int getRetentionBatchSize() {
+        String size = get("retention.batch", "100");
+        return Integer.parseInt(size);
+    }
+
+    public static Duration getRetentionPeriod() {
+        String hours = get("retention.period.hours", "24");
+        return Duration.ofHours(Long.parseLong(hours));
+    }
+
+    public static double getHostRate() {
+        String rate = get("host.rate", "1");
+        return Double.parseDouble(rate);
+    }
+
+    public static int getHostBurst() {
+        String burst = get("host.burst", "5");
+        return Integer.parseInt(burst);
+    }
+
+    public static Duration getHostMaxWait() {
+        String seconds = get("host.max.wait.seconds", "30");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static int getCircuitFailures() {
+        String failures = get("circuit.failures", "5");
+        return Integer.parseInt(failures);
+    }
+
+    public static Duration getCircuitOpenDuration() {
+        String seconds = get("circuit.open.seconds", "60");
+        return Duration.ofSeconds(Long.parseLong(seconds));
+    }
+
+    public static boolean isAsyncChecks() {
+        return Boolean.parseBoolean(get("async.checks", "false"));
+    }
+
+    public static int getCheckJobWorkers() {
+        String workers = get("check.job.workers", "8");
+        return Integer.parseInt(workers);
+    }
+
+    public static int getCheckJobQueueSize() {
+        String size = get("check.job.queue", "100");
+        return Integer.parseInt(size);
+    }
+
+    public static int getCheckJobHistory() {
+        String size = get("check.job.history", "1000");
+        return Integer.parseInt(size);
+    }
+
+    public static boolean isVirtualThreads() {
+        return Boolean.parseBoolean(get("http.virtual.threads", "false"));
+    }
+
+    public static int getRouteInFlightLimit() {
+        String limit = get("route.in.flight", "200");
+        return Integer.parseInt(limit);
+    }
+
+    public static int getMaxAwaitingConnections() {
+        String threads = get("db.max.awaiting", "20");
+        return Integer.parseInt(threads);
+    }
+}
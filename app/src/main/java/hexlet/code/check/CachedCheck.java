@@ -0,0 +1,36 @@
+package hexlet.code.check;
+
+import hexlet.code.model.UrlCheck;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.sql.Timestamp;
+
+@Getter
+@AllArgsConstructor
+public final class CachedCheck {
+    private final int statusCode;
+    private final String title;
+    private final String h1;
+    private final String description;
+    private final String etag;
+    private final String lastModified;
+    private final String contentHash;
+    private final Long simHash;
+    private final String extras;
+
+    public CachedCheck withExtras(String otherExtras) {
+        return new CachedCheck(statusCode, title, h1, description, etag, lastModified, contentHash, simHash,
+                otherExtras);
+    }
+
+    public UrlCheck toUrlCheck(Timestamp createdAt) {
+        var urlCheck = new UrlCheck(statusCode, title, h1, description, createdAt);
+        urlCheck.setEtag(etag);
+        urlCheck.setLastModified(lastModified);
+        urlCheck.setContentHash(contentHash);
+        urlCheck.setSimHash(simHash);
+        urlCheck.setExtras(extras);
+        return urlCheck;
+    }
+}
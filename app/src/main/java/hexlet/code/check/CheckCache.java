@@ -0,0 +1,132 @@
+package hexlet.code.check;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class CheckCache {
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CheckCache(int maxSize, Duration defaultTtl, Duration maxTtl) {
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<CachedCheck> get(String url) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            var entry = entries.get(url);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return Optional.of(entry.check);
+            }
+            if (entry != null) {
+                entries.remove(url);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String url, CachedCheck check, HttpHeaders headers) {
+        var ttl = ttl(headers);
+        if (ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        var entry = new Entry(check, System.currentTimeMillis() + ttl.toMillis());
+        synchronized (entries) {
+            entries.put(url, entry);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    Duration ttl(HttpHeaders headers) {
+        var cacheControl = headers.firstValue("Cache-Control").map(String::toLowerCase);
+        if (cacheControl.isPresent()) {
+            Long maxAge = null;
+            for (var directive : cacheControl.get().split(",")) {
+                var value = directive.trim();
+                if (value.equals("no-store") || value.equals("no-cache") || value.equals("private")) {
+                    return Duration.ZERO;
+                }
+                if (value.startsWith("max-age=")) {
+                    maxAge = parseSeconds(value.substring("max-age=".length()));
+                }
+            }
+            if (maxAge != null) {
+                return limit(Duration.ofSeconds(maxAge));
+            }
+        }
+        var expires = headers.firstValue("Expires");
+        if (expires.isPresent()) {
+            var expiresAt = parseDate(expires.get());
+            if (expiresAt == null) {
+                return Duration.ZERO;
+            }
+            var date = headers.firstValue("Date").map(CheckCache::parseDate).orElseGet(ZonedDateTime::now);
+            return limit(Duration.between(date, expiresAt));
+        }
+        return limit(defaultTtl);
+    }
+
+    private Duration limit(Duration ttl) {
+        return ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl;
+    }
+
+    private static Long parseSeconds(String value) {
+        try {
+            return Long.parseLong(value.replace("\"", "").trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ZonedDateTime parseDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private record Entry(CachedCheck check, long expiresAt) {
+    }
+}
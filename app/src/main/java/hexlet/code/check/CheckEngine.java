@@ -0,0 +1,156 @@
+package hexlet.code.check;
+
+import hexlet.code.model.Url;
+import hexlet.code.model.UrlCheck;
+import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.CheckWriter;
+import hexlet.code.repository.UrlRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+@Slf4j
+public final class CheckEngine {
+    private static final BiConsumer<Url, Boolean> NO_LISTENER = (url, succeeded) -> { };
+
+    private final Semaphore slots;
+    private final int perHostLimit;
+    private final CheckWriter checkWriter;
+    private final AtomicReference<CheckProgress> current = new AtomicReference<>();
+
+    public CheckEngine(int concurrency, int perHostLimit, CheckWriter checkWriter) {
+        this.slots = new Semaphore(concurrency);
+        this.perHostLimit = perHostLimit;
+        this.checkWriter = checkWriter;
+    }
+
+    public Optional<CheckProgress> getCurrent() {
+        return Optional.ofNullable(current.get());
+    }
+
+    public boolean isRunning() {
+        var progress = current.get();
+        return progress != null && !progress.isDone();
+    }
+
+    public CheckProgress startAll(int chunkSize) throws SQLException {
+        var previous = current.get();
+        if (previous != null && !previous.isDone()) {
+            return previous;
+        }
+        var progress = new CheckProgress(UrlRepository.count());
+        if (!current.compareAndSet(previous, progress)) {
+            return current.get();
+        }
+        Thread.ofVirtual().name("check-engine").start(() -> runAll(chunkSize, progress));
+        return progress;
+    }
+
+    public CheckProgress checkAll(List<Url> urls) {
+        return checkAll(urls, NO_LISTENER);
+    }
+
+    public CheckProgress checkAll(List<Url> urls, BiConsumer<Url, Boolean> listener) {
+        var progress = new CheckProgress(urls.size());
+        run(urls, progress, listener);
+        return progress;
+    }
+
+    private void runAll(int chunkSize, CheckProgress progress) {
+        Map<String, Semaphore> hostSlots = new ConcurrentHashMap<>();
+        var queued = new Semaphore(chunkSize);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var ids = UrlRepository.getIds(0, chunkSize);
+            while (!ids.isEmpty()) {
+                for (long id : ids) {
+                    queued.acquireUninterruptibly();
+                    executor.submit(() -> {
+                        try {
+                            check(id, hostSlots, progress);
+                        } finally {
+                            queued.release();
+                        }
+                    });
+                }
+                ids = UrlRepository.getIds(ids.get(ids.size() - 1), chunkSize);
+            }
+        } catch (SQLException e) {
+            log.warn("Reading urls to check failed: {}", e.getMessage());
+        }
+        finish(progress);
+    }
+
+    private void check(long id, Map<String, Semaphore> hostSlots, CheckProgress progress) {
+        try {
+            var url = UrlRepository.find(id);
+            if (url.isPresent()) {
+                check(url.get(), hostSlots, progress);
+                return;
+            }
+        } catch (SQLException e) {
+            log.warn("Loading url {} failed: {}", id, e.getMessage());
+        }
+        progress.fail();
+    }
+
+    private void run(List<Url> urls, CheckProgress progress, BiConsumer<Url, Boolean> listener) {
+        Map<String, Semaphore> hostSlots = new ConcurrentHashMap<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Url url : urls) {
+                executor.submit(() -> listener.accept(url, check(url, hostSlots, progress)));
+            }
+        }
+        finish(progress);
+    }
+
+    private static void finish(CheckProgress progress) {
+        progress.finish();
+        log.info("Checked {} urls in {} ms, failed: {}", progress.getCompleted(),
+                Duration.between(progress.getStartedAt(), progress.getFinishedAt()).toMillis(),
+                progress.getFailed());
+    }
+
+    // the host slot is taken first, so checks waiting on a busy host hold no global slot
+    private boolean check(Url url, Map<String, Semaphore> hostSlots, CheckProgress progress) {
+        UrlCheck urlCheck;
+        var hostSlot = hostSlots.computeIfAbsent(HostGuard.hostOf(url.getName()), host -> new Semaphore(perHostLimit));
+        hostSlot.acquireUninterruptibly();
+        slots.acquireUninterruptibly();
+        try {
+            var previous = CheckRepository.findLastCheck(url.getId()).orElse(null);
+            urlCheck = CheckRepository.parsingURL(url.getName(), previous);
+            urlCheck.setUrlId(url.getId());
+        } catch (IOException | SQLException | RuntimeException e) {
+            log.warn("Check of {} failed: {}", url.getName(), e.getMessage());
+            progress.fail();
+            return false;
+        } finally {
+            hostSlot.release();
+            slots.release();
+        }
+        try {
+            checkWriter.write(urlCheck).join();
+            progress.succeed();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CompletionException e) {
+            log.warn("Storing check of {} failed: {}", url.getName(), e.getCause().getMessage());
+        } catch (IllegalStateException e) {
+            log.warn("Storing check of {} failed: {}", url.getName(), e.getMessage());
+        }
+        progress.fail();
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package hexlet.code.check;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface CheckExtractor {
+    String name();
+
+    default Set<String> tags() {
+        return Set.of();
+    }
+
+    // keys set by response, dropped from the previous data on a 304 and kept out of the check cache
+    default Set<String> responseKeys() {
+        return Set.of();
+    }
+
+    default void response(FetchedPage page, Map<String, Object> data) {
+    }
+
+    default void startTag(String tag, Map<String, String> attributes, Map<String, Object> data) {
+    }
+
+    // bodyBytes is the size of the body when the scan read it to the end, otherwise -1
+    default void finish(long bodyBytes, Map<String, Object> data) {
+    }
+}
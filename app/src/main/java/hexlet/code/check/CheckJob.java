@@ -0,0 +1,42 @@
+package hexlet.code.check;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+public final class CheckJob {
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final long urlId;
+    private final Instant createdAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Long checkId;
+    private volatile String error;
+
+    public CheckJob(long urlId) {
+        this.urlId = urlId;
+    }
+
+    public boolean isDone() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void succeed(long storedCheckId) {
+        checkId = storedCheckId;
+        status = Status.SUCCEEDED;
+    }
+
+    void fail(String message) {
+        error = message;
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,92 @@
+package hexlet.code.check;
+
+import hexlet.code.model.Url;
+import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.CheckWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public final class CheckJobs implements AutoCloseable {
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CheckJob> jobs;
+    private final CheckWriter checkWriter;
+
+    public CheckJobs(int workers, int queueSize, int maxJobs, CheckWriter checkWriter) {
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), Thread.ofVirtual().name("check-job-", 0).factory());
+        this.jobs = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CheckJob> eldest) {
+                return size() > maxJobs;
+            }
+        };
+        this.checkWriter = checkWriter;
+    }
+
+    public CheckJob submit(Url url) {
+        var job = new CheckJob(url.getId());
+        executor.execute(() -> run(job, url));
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        return job;
+    }
+
+    public Optional<CheckJob> find(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    public Optional<CheckJob> findActive(long urlId) {
+        synchronized (jobs) {
+            return jobs.values().stream()
+                    .filter(job -> job.getUrlId() == urlId && !job.isDone())
+                    .findFirst();
+        }
+    }
+
+    public boolean isSaturated() {
+        return executor.getQueue().remainingCapacity() == 0;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void run(CheckJob job, Url url) {
+        job.start();
+        try {
+            var previous = CheckRepository.findLastCheck(url.getId()).orElse(null);
+            var urlCheck = CheckRepository.parsingURL(url.getName(), previous);
+            urlCheck.setUrlId(url.getId());
+            checkWriter.write(urlCheck).whenComplete((stored, e) -> {
+                if (e != null) {
+                    fail(job, url, e.getCause() != null ? e.getCause() : e);
+                } else {
+                    job.succeed(stored.getId());
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, url, e);
+        } catch (IOException | SQLException | RuntimeException e) {
+            fail(job, url, e);
+        }
+    }
+
+    private static void fail(CheckJob job, Url url, Throwable e) {
+        log.warn("Check job {} for {} failed: {}", job.getId(), url.getName(), e.getMessage());
+        job.fail(e.getMessage());
+    }
+}
@@ -0,0 +1,49 @@
+package hexlet.code.check;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class CheckProgress {
+    @Getter
+    private final int total;
+    @Getter
+    private final Instant startedAt = Instant.now();
+    @Getter
+    private volatile Instant finishedAt;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public CheckProgress(int total) {
+        this.total = total;
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getCompleted() {
+        return succeeded.get() + failed.get();
+    }
+
+    public boolean isDone() {
+        return finishedAt != null;
+    }
+
+    void succeed() {
+        succeeded.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void finish() {
+        finishedAt = Instant.now();
+    }
+}
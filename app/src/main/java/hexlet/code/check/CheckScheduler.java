@@ -0,0 +1,87 @@
+package hexlet.code.check;
+
+import hexlet.code.model.Url;
+import hexlet.code.repository.UrlRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public final class CheckScheduler implements AutoCloseable {
+    private final CheckEngine checkEngine;
+    private final Duration interval;
+    private final Duration retryDelay;
+    private final double jitter;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "check-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CheckScheduler(CheckEngine checkEngine, Duration interval, Duration retryDelay, double jitter,
+                          int batchSize, Duration pollInterval, Duration checkTimeout) {
+        this.checkEngine = checkEngine;
+        this.interval = interval;
+        this.retryDelay = retryDelay;
+        this.jitter = jitter;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.lease = checkTimeout.multipliedBy(batchSize);
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public int runOnce() throws SQLException {
+        long now = System.currentTimeMillis();
+        var urls = UrlRepository.claimDueUrls(batchSize, new Timestamp(now),
+                new Timestamp(now + lease.toMillis()));
+        if (!urls.isEmpty()) {
+            checkEngine.checkAll(urls, this::reschedule);
+        }
+        return urls.size();
+    }
+
+    private void poll() {
+        try {
+            while (runOnce() == batchSize) {
+                log.debug("Due urls left, claiming the next batch");
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.error("Scheduled checks failed: {}", e.getMessage());
+        }
+    }
+
+    private void reschedule(Url url, boolean succeeded) {
+        Duration delay;
+        if (succeeded) {
+            delay = interval;
+        } else {
+            int failures = Math.min(url.getCheckFailures(), 20);
+            var backoff = retryDelay.multipliedBy(1L << failures);
+            delay = backoff.compareTo(interval) < 0 ? backoff : interval;
+        }
+        double factor = jitter > 0 ? 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter) : 1;
+        long next = System.currentTimeMillis() + (long) (delay.toMillis() * factor);
+        try {
+            UrlRepository.reschedule(url.getId(), new Timestamp(next), !succeeded);
+        } catch (SQLException e) {
+            log.warn("Rescheduling {} failed: {}", url.getName(), e.getMessage());
+        }
+    }
+}
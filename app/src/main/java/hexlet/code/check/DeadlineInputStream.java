@@ -0,0 +1,70 @@
+package hexlet.code.check;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public final class DeadlineInputStream extends FilterInputStream {
+    private final long deadline;
+
+    private DeadlineInputStream(InputStream in, long deadline) {
+        super(in);
+        this.deadline = deadline;
+    }
+
+    public static InputStream of(InputStream in, long deadline) {
+        var stream = new DeadlineInputStream(in, deadline);
+        long remaining = Math.max(0, deadline - System.nanoTime());
+        CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(stream::closeQuietly);
+        return stream;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkDeadline();
+        try {
+            int result = super.read();
+            checkDeadline();
+            return result;
+        } catch (IOException e) {
+            checkDeadline();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkDeadline();
+        try {
+            int result = super.read(b, off, len);
+            checkDeadline();
+            return result;
+        } catch (IOException e) {
+            checkDeadline();
+            throw e;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkDeadline();
+        return super.skip(n);
+    }
+
+    private void checkDeadline() throws HttpTimeoutException {
+        if (System.nanoTime() - deadline >= 0) {
+            throw new HttpTimeoutException("Reading the response body timed out");
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // the reader sees the timeout either way
+        }
+    }
+}
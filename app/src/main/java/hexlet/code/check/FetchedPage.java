@@ -0,0 +1,48 @@
+package hexlet.code.check;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public final class FetchedPage {
+    private final URI uri;
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final InputStream body;
+    private final List<URI> redirects;
+    private final Duration responseTime;
+    private final Instant certificateExpiry;
+
+    public FetchedPage(URI uri, int statusCode, HttpHeaders headers, InputStream body) {
+        this(uri, statusCode, headers, body, List.of(), Duration.ZERO, null);
+    }
+
+    public FetchedPage withBody(InputStream otherBody) {
+        return new FetchedPage(uri, statusCode, headers, otherBody, redirects, responseTime, certificateExpiry);
+    }
+
+    public Charset getCharset() {
+        var contentType = headers.firstValue("Content-Type").orElse("").toLowerCase();
+        int index = contentType.indexOf("charset=");
+        if (index < 0) {
+            return null;
+        }
+        var name = contentType.substring(index + "charset=".length()).split(";")[0].replace("\"", "").trim();
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package hexlet.code.check;
+
+import lombok.Getter;
+
+import java.net.URI;
+import java.time.Instant;
+
+public final class HostGuard {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Getter
+    private final String host;
+    private final double ratePerNano;
+    private final int burst;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private Instant openedAtInstant;
+    private boolean probeInFlight;
+
+    HostGuard(String host, double ratePerSecond, int burst, int failureThreshold, long openNanos) {
+        this.host = host;
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized Instant getOpenedAt() {
+        return openedAtInstant;
+    }
+
+    public synchronized double getTokens() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.OPEN || state == State.HALF_OPEN && probeInFlight) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    // -1 without taking a token when the wait would exceed maxWaitNanos
+    synchronized long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        refill(now);
+        long waitNanos = tokens >= 1 ? 0 : (long) ((1 - tokens) / ratePerNano);
+        if (waitNanos > maxWaitNanos) {
+            probeInFlight = false;
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    synchronized boolean isIdle() {
+        refill(System.nanoTime());
+        return state == State.CLOSED && consecutiveFailures == 0 && tokens >= burst;
+    }
+
+    synchronized void record(boolean succeeded) {
+        probeInFlight = false;
+        if (succeeded) {
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            openedAtInstant = null;
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            openedAtInstant = Instant.now();
+        }
+    }
+
+    static String hostOf(String url) {
+        try {
+            var host = URI.create(url).getHost();
+            return host == null ? url : host;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,14 @@
+package hexlet.code.check;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class HostUnavailableException extends IOException {
+    public HostUnavailableException(String host) {
+        super("Circuit for " + host + " is open");
+    }
+
+    public HostUnavailableException(String host, Duration maxWait) {
+        super("Rate limit of " + host + " would delay the request by more than " + maxWait.toMillis() + " ms");
+    }
+}
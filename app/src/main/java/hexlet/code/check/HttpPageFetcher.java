@@ -0,0 +1,145 @@
+package hexlet.code.check;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+public final class HttpPageFetcher implements PageFetcher {
+    private static final String USER_AGENT = "hexlet-page-analyzer";
+
+    private static final HttpResponse.BodyHandler<InputStream> BODY_HANDLER = info -> isRedirect(info.statusCode())
+            ? HttpResponse.BodySubscribers.replacing(InputStream.nullInputStream())
+            : HttpResponse.BodySubscribers.ofInputStream();
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxRedirects;
+
+    public HttpPageFetcher(Duration connectTimeout, Duration requestTimeout, int maxRedirects) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.maxRedirects = maxRedirects;
+    }
+
+    @Override
+    public CompletableFuture<FetchedPage> fetch(String url, Map<String, String> headers) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid url: " + url, e));
+        }
+        long start = System.nanoTime();
+        var exchange = new AtomicReference<CompletableFuture<HttpResponse<InputStream>>>();
+        return fetch(uri, headers, List.of(), start, exchange)
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((page, e) -> {
+                    if (e != null) {
+                        cancel(exchange.get());
+                    }
+                })
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(toIOException(url, e)));
+    }
+
+    private CompletableFuture<FetchedPage> fetch(URI uri, Map<String, String> headers, List<URI> redirects, long start,
+            AtomicReference<CompletableFuture<HttpResponse<InputStream>>> exchange) {
+        long deadline = start + requestTimeout.toNanos();
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return CompletableFuture.failedFuture(new TimeoutException());
+        }
+        HttpRequest request;
+        try {
+            var builder = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofNanos(remaining))
+                    .header("User-Agent", USER_AGENT)
+                    .GET();
+            headers.forEach(builder::header);
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid url: " + uri, e));
+        }
+        var sent = client.sendAsync(request, BODY_HANDLER);
+        exchange.set(sent);
+        return sent.thenCompose(response -> {
+            var location = response.headers().firstValue("Location");
+            if (!isRedirect(response.statusCode()) || location.isEmpty()) {
+                var body = DeadlineInputStream.of(response.body(), deadline);
+                var page = new FetchedPage(uri, response.statusCode(), response.headers(), body, redirects,
+                        Duration.ofNanos(System.nanoTime() - start), certificateExpiry(response));
+                return CompletableFuture.completedFuture(page);
+            }
+            if (redirects.size() >= maxRedirects) {
+                return CompletableFuture.failedFuture(new IOException("Too many redirects: " + uri));
+            }
+            List<URI> chain = new ArrayList<>(redirects);
+            chain.add(uri);
+            return fetch(uri.resolve(location.get()), headers, chain, start, exchange);
+        });
+    }
+
+    private static void cancel(CompletableFuture<HttpResponse<InputStream>> sent) {
+        if (sent == null || sent.cancel(true) || sent.isCompletedExceptionally()) {
+            return;
+        }
+        try {
+            sent.join().body().close();
+        } catch (IOException e) {
+            // the connection is dropped either way
+        }
+    }
+
+    private static Instant certificateExpiry(HttpResponse<?> response) {
+        var session = response.sslSession();
+        if (session.isEmpty()) {
+            return null;
+        }
+        try {
+            var certificates = session.get().getPeerCertificates();
+            if (certificates.length > 0 && certificates[0] instanceof X509Certificate certificate) {
+                return certificate.getNotAfter().toInstant();
+            }
+        } catch (SSLPeerUnverifiedException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static boolean isRedirect(int statusCode) {
+        return statusCode == 301 || statusCode == 302 || statusCode == 303
+                || statusCode == 307 || statusCode == 308;
+    }
+
+    private static IOException toIOException(String url, Throwable e) {
+        var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof TimeoutException) {
+            return new HttpTimeoutException("Fetching " + url + " timed out");
+        }
+        return new IOException("Fetching " + url + " failed", cause);
+    }
+}
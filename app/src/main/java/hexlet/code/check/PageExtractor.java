@@ -0,0 +1,544 @@
+package hexlet.code.check;
+
+import hexlet.code.metrics.Histogram;
+import hexlet.code.metrics.Metrics;
+import org.apache.commons.lang3.StringUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class PageExtractor {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_FIELD_BYTES = 16 * 1024;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+    private static final LongAdder FALLBACKS = Metrics.counter("page_extractor_fallbacks_total",
+            "Titles and h1s parsed by jsoup because the scanner could not find their end", "");
+
+    private final int maxBytes;
+    private final boolean fingerprints;
+    private final List<CheckExtractor> extractors;
+    private final Set<String> extractorTags = new HashSet<>();
+    private final Set<String> responseKeys = new HashSet<>();
+    private final Histogram[] extractorTimes;
+
+    public PageExtractor(int maxBytes) {
+        this(maxBytes, false, List.of());
+    }
+
+    public PageExtractor(int maxBytes, boolean fingerprints, List<CheckExtractor> extractors) {
+        this.maxBytes = maxBytes;
+        this.fingerprints = fingerprints;
+        this.extractors = List.copyOf(extractors);
+        this.extractorTimes = new Histogram[extractors.size()];
+        for (int i = 0; i < this.extractors.size(); i++) {
+            extractorTags.addAll(this.extractors.get(i).tags());
+            responseKeys.addAll(this.extractors.get(i).responseKeys());
+            extractorTimes[i] = Metrics.histogram("check_extractor_duration_seconds",
+                    "Time spent in a check extractor per page", Metrics.labels("extractor", extractors.get(i).name()));
+        }
+    }
+
+    public PageSummary extract(FetchedPage page) throws IOException {
+        return extract(page, page.getBody(), page.getCharset());
+    }
+
+    public PageSummary extract(InputStream body, Charset charset) throws IOException {
+        return extract(null, body, charset);
+    }
+
+    private PageSummary extract(FetchedPage page, InputStream body, Charset charset) throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        long[] nanos = new long[extractors.size()];
+        if (page != null) {
+            respond(page, data, nanos);
+        }
+        var scanner = new Scanner(body, maxBytes, fingerprints ? sha256() : null, data, nanos);
+        scanner.scan();
+        for (int i = 0; i < extractors.size(); i++) {
+            long start = System.nanoTime();
+            extractors.get(i).finish(scanner.bodyBytes(), data);
+            nanos[i] += System.nanoTime() - start;
+            extractorTimes[i].recordNanos(nanos[i]);
+        }
+        Charset fieldCharset = charset != null ? charset : scanner.metaCharset();
+        return new PageSummary(
+                scanner.titleSource != null ? parsed(scanner.titleSource, fieldCharset, "title")
+                        : text(scanner.title, fieldCharset),
+                scanner.h1Source != null ? parsed(scanner.h1Source, fieldCharset, "h1")
+                        : text(scanner.h1, fieldCharset),
+                attribute(scanner.description, fieldCharset),
+                scanner.contentHash(),
+                scanner.simHash(),
+                data);
+    }
+
+    public Map<String, Object> revalidate(FetchedPage page, Map<String, Object> previous) {
+        Map<String, Object> data = withoutResponseData(previous);
+        long[] nanos = new long[extractors.size()];
+        respond(page, data, nanos);
+        for (int i = 0; i < extractors.size(); i++) {
+            extractorTimes[i].recordNanos(nanos[i]);
+        }
+        return data;
+    }
+
+    public Map<String, Object> withoutResponseData(Map<String, Object> data) {
+        Map<String, Object> bodyData = new LinkedHashMap<>(data);
+        bodyData.keySet().removeAll(responseKeys);
+        return bodyData;
+    }
+
+    private void respond(FetchedPage page, Map<String, Object> data, long[] nanos) {
+        for (int i = 0; i < extractors.size(); i++) {
+            long start = System.nanoTime();
+            extractors.get(i).response(page, data);
+            nanos[i] += System.nanoTime() - start;
+        }
+    }
+
+    public static int distance(long simHash, long other) {
+        return Long.bitCount(simHash ^ other);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String text(ByteArrayOutputStream bytes, Charset charset) {
+        if (bytes == null) {
+            return "";
+        }
+        var value = bytes.toString(charset);
+        if (value.indexOf('&') >= 0) {
+            value = Parser.unescapeEntities(value, false);
+        }
+        return StringUtils.normalizeSpace(value);
+    }
+
+    private static String parsed(byte[] source, Charset charset, String tag) {
+        FALLBACKS.increment();
+        var element = Jsoup.parse(new String(source, charset)).selectFirst(tag);
+        if (element == null) {
+            return "";
+        }
+        var value = element.text();
+        return value.length() > MAX_FIELD_BYTES ? value.substring(0, MAX_FIELD_BYTES) : value;
+    }
+
+    private static String attribute(byte[] bytes, Charset charset) {
+        if (bytes == null) {
+            return "";
+        }
+        var value = new String(bytes, charset);
+        if (value.indexOf('&') >= 0) {
+            value = Parser.unescapeEntities(value, true);
+        }
+        return value.trim();
+    }
+
+    private final class Scanner {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private int remaining;
+        private long read;
+        private boolean ended;
+
+        private ByteArrayOutputStream title;
+        private ByteArrayOutputStream h1;
+        private byte[] description;
+        private String charsetName;
+
+        private ByteArrayOutputStream capture;
+        private String captureTag;
+        private ByteArrayOutputStream raw;
+        private byte[] titleSource;
+        private byte[] h1Source;
+        private boolean inBody;
+
+        private final ByteArrayOutputStream name = new ByteArrayOutputStream(16);
+        private final ByteArrayOutputStream value = new ByteArrayOutputStream(64);
+
+        private final MessageDigest digest;
+        private final int[] weights = new int[Long.SIZE];
+        private long word = FNV_OFFSET;
+        private int wordLength;
+
+        private final Map<String, Object> data;
+        private final long[] nanos;
+
+        Scanner(InputStream in, int maxBytes, MessageDigest digest, Map<String, Object> data, long[] nanos) {
+            this.in = in;
+            this.remaining = maxBytes;
+            this.digest = digest;
+            this.data = data;
+            this.nanos = nanos;
+        }
+
+        long bodyBytes() {
+            return ended ? read : -1;
+        }
+
+        String contentHash() {
+            return digest != null ? HexFormat.of().formatHex(digest.digest()) : null;
+        }
+
+        Long simHash() {
+            if (digest == null) {
+                return null;
+            }
+            endWord();
+            long simHash = 0;
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                if (weights[bit] > 0) {
+                    simHash |= 1L << bit;
+                }
+            }
+            return simHash;
+        }
+
+        Charset metaCharset() {
+            if (charsetName != null) {
+                try {
+                    return Charset.forName(charsetName.trim());
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+            return StandardCharsets.UTF_8;
+        }
+
+        void scan() throws IOException {
+            scanTags();
+            if (capture != null) {
+                endCapture(false);
+            }
+        }
+
+        private void scanTags() throws IOException {
+            while (!isComplete()) {
+                int c = next();
+                if (c == -1) {
+                    return;
+                }
+                if (c != '<') {
+                    write(c);
+                    continue;
+                }
+                c = next();
+                if (c == '!' || c == '?') {
+                    skipMarkup(c);
+                } else if (c == '/') {
+                    endTag();
+                } else if (isLetter(c)) {
+                    startTag(c);
+                } else {
+                    write('<');
+                    if (c != -1) {
+                        write(c);
+                    }
+                }
+            }
+        }
+
+        private boolean isComplete() {
+            return digest == null && title != null && h1 != null && description != null && capture == null;
+        }
+
+        private void startTag(int first) throws IOException {
+            var tag = readName(first);
+            boolean meta = tag.equals("meta");
+            Map<String, String> attributes = extractorTags.contains(tag) ? new HashMap<>() : null;
+            String metaName = null;
+            String httpEquiv = null;
+            byte[] content = null;
+            int c = next();
+            while (c != -1 && c != '>') {
+                if (isSpace(c) || c == '/') {
+                    c = next();
+                    continue;
+                }
+                name.reset();
+                while (c != -1 && c != '=' && c != '>' && c != '/' && !isSpace(c)) {
+                    name.write(Character.toLowerCase(c));
+                    c = next();
+                }
+                while (isSpace(c)) {
+                    c = next();
+                }
+                if (c != '=') {
+                    continue;
+                }
+                c = readValue();
+                if (attributes != null) {
+                    attributes.putIfAbsent(name.toString(StandardCharsets.ISO_8859_1),
+                            attribute(value.toByteArray(), StandardCharsets.UTF_8));
+                }
+                if (meta) {
+                    var attributeName = name.toString(StandardCharsets.ISO_8859_1);
+                    switch (attributeName) {
+                        case "name" -> metaName = value.toString(StandardCharsets.ISO_8859_1);
+                        case "http-equiv" -> httpEquiv = value.toString(StandardCharsets.ISO_8859_1);
+                        case "content" -> content = value.toByteArray();
+                        case "charset" -> charsetName = value.toString(StandardCharsets.ISO_8859_1);
+                        default -> {
+                        }
+                    }
+                }
+            }
+            if (meta) {
+                meta(metaName, httpEquiv, content);
+            }
+            if (attributes != null) {
+                onTag(tag, attributes);
+            }
+            switch (tag) {
+                case "body" -> inBody = true;
+                case "title" -> {
+                    if (title == null && !inBody && capture == null) {
+                        title = new ByteArrayOutputStream();
+                        startCapture(tag, title);
+                    }
+                }
+                case "h1" -> {
+                    if (h1 == null && capture == null) {
+                        h1 = new ByteArrayOutputStream();
+                        startCapture(tag, h1);
+                    }
+                }
+                case "script", "style" -> skipRawText(tag);
+                default -> {
+                }
+            }
+        }
+
+        private void onTag(String tag, Map<String, String> attributes) {
+            for (int i = 0; i < extractors.size(); i++) {
+                var extractor = extractors.get(i);
+                if (extractor.tags().contains(tag)) {
+                    long start = System.nanoTime();
+                    extractor.startTag(tag, attributes, data);
+                    nanos[i] += System.nanoTime() - start;
+                }
+            }
+        }
+
+        private void meta(String metaName, String httpEquiv, byte[] content) {
+            if (content == null) {
+                return;
+            }
+            if (description == null && "description".equalsIgnoreCase(metaName)) {
+                description = content;
+            } else if (charsetName == null && "content-type".equalsIgnoreCase(httpEquiv)) {
+                var type = new String(content, StandardCharsets.ISO_8859_1);
+                int index = type.toLowerCase().indexOf("charset=");
+                if (index >= 0) {
+                    charsetName = type.substring(index + "charset=".length());
+                }
+            }
+        }
+
+        private void startCapture(String tag, ByteArrayOutputStream target) {
+            captureTag = tag;
+            capture = target;
+            raw = new ByteArrayOutputStream();
+            raw.writeBytes(("<" + tag + ">").getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        private void endCapture(boolean closed) {
+            if (!closed || capture.size() >= MAX_FIELD_BYTES) {
+                if (captureTag.equals("title")) {
+                    titleSource = raw.toByteArray();
+                } else {
+                    h1Source = raw.toByteArray();
+                }
+            }
+            capture = null;
+            captureTag = null;
+            raw = null;
+        }
+
+        private void endTag() throws IOException {
+            int c = next();
+            var tag = isLetter(c) ? readName(c) : "";
+            skipUntil('>');
+            if (tag.equals(captureTag)) {
+                endCapture(true);
+            }
+        }
+
+        private int readValue() throws IOException {
+            value.reset();
+            int c = next();
+            while (isSpace(c)) {
+                c = next();
+            }
+            if (c == '"' || c == '\'') {
+                int quote = c;
+                c = next();
+                while (c != -1 && c != quote) {
+                    value.write(c);
+                    c = next();
+                }
+                return next();
+            }
+            while (c != -1 && c != '>' && !isSpace(c)) {
+                value.write(c);
+                c = next();
+            }
+            return c;
+        }
+
+        private String readName(int first) throws IOException {
+            name.reset();
+            name.write(Character.toLowerCase(first));
+            while (true) {
+                int c = peek();
+                if (!isLetter(c) && !(c >= '0' && c <= '9')) {
+                    return name.toString(StandardCharsets.ISO_8859_1);
+                }
+                name.write(Character.toLowerCase(next()));
+            }
+        }
+
+        private void skipMarkup(int first) throws IOException {
+            if (first == '!' && peek() == '-') {
+                next();
+                if (peek() == '-') {
+                    next();
+                    skipUntil("-->");
+                    return;
+                }
+            }
+            skipUntil('>');
+        }
+
+        private void skipRawText(String tag) throws IOException {
+            skipUntil("</" + tag);
+            skipUntil('>');
+        }
+
+        private void skipUntil(int end) throws IOException {
+            int c;
+            do {
+                c = next();
+            } while (c != -1 && c != end);
+        }
+
+        private void skipUntil(String end) throws IOException {
+            int matched = 0;
+            while (matched < end.length()) {
+                int c = next();
+                if (c == -1) {
+                    return;
+                }
+                if (Character.toLowerCase(c) == end.charAt(matched)) {
+                    matched++;
+                } else {
+                    matched = Character.toLowerCase(c) == end.charAt(0) ? 1 : 0;
+                }
+            }
+        }
+
+        private void write(int c) {
+            if (capture != null && capture.size() < MAX_FIELD_BYTES) {
+                capture.write(c);
+            }
+            if (digest == null) {
+                return;
+            }
+            if (isLetter(c) || c >= '0' && c <= '9' || c >= 0x80) {
+                word = (word ^ (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c)) * FNV_PRIME;
+                wordLength++;
+            } else {
+                endWord();
+            }
+        }
+
+        private void endWord() {
+            if (wordLength == 0) {
+                return;
+            }
+            long hash = mix(word);
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += (hash >>> bit & 1) == 1 ? 1 : -1;
+            }
+            word = FNV_OFFSET;
+            wordLength = 0;
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position] & 0xFF;
+        }
+
+        private int next() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            int c = buffer[position++] & 0xFF;
+            if (raw != null) {
+                raw.write(c);
+            }
+            return c;
+        }
+
+        private boolean fill() throws IOException {
+            if (remaining <= 0) {
+                return false;
+            }
+            int count = in.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (count <= 0) {
+                ended = count < 0;
+                return false;
+            }
+            if (digest != null) {
+                digest.update(buffer, 0, count);
+            }
+            position = 0;
+            limit = count;
+            remaining -= count;
+            read += count;
+            return true;
+        }
+
+        private static long mix(long hash) {
+            hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+            hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+            return hash ^ (hash >>> 33);
+        }
+
+        private static boolean isLetter(int c) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+        }
+
+        private static boolean isSpace(int c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+        }
+    }
+}
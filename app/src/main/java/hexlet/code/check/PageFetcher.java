@@ -0,0 +1,12 @@
+package hexlet.code.check;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface PageFetcher {
+    CompletableFuture<FetchedPage> fetch(String url, Map<String, String> headers);
+
+    default CompletableFuture<FetchedPage> fetch(String url) {
+        return fetch(url, Map.of());
+    }
+}
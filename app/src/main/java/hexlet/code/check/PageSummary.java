@@ -0,0 +1,17 @@
+package hexlet.code.check;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public final class PageSummary {
+    private final String title;
+    private final String h1;
+    private final String description;
+    private final String contentHash;
+    private final Long simHash;
+    private final Map<String, Object> data;
+}
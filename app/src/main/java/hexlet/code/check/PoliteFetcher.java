@@ -0,0 +1,78 @@
+package hexlet.code.check;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class PoliteFetcher implements PageFetcher {
+    private final PageFetcher delegate;
+    private final double ratePerSecond;
+    private final int burst;
+    private final int failureThreshold;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final long openNanos;
+    private final Duration maxWait;
+    private final Map<String, HostGuard> guards = new ConcurrentHashMap<>();
+    private final AtomicLong sweptAt = new AtomicLong(System.nanoTime());
+
+    public PoliteFetcher(PageFetcher delegate, double ratePerSecond, int burst, int failureThreshold,
+                         Duration openDuration, Duration maxWait) {
+        this.delegate = delegate;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public CompletableFuture<FetchedPage> fetch(String url, Map<String, String> headers) {
+        sweep();
+        var host = HostGuard.hostOf(url);
+        var guard = guards.computeIfAbsent(host,
+                key -> new HostGuard(key, ratePerSecond, burst, failureThreshold, openNanos));
+        if (!guard.tryAcquire()) {
+            return CompletableFuture.failedFuture(new HostUnavailableException(host));
+        }
+        long waitNanos = guard.reserve(maxWait.toNanos());
+        if (waitNanos < 0) {
+            return CompletableFuture.failedFuture(new HostUnavailableException(host, maxWait));
+        }
+        CompletableFuture<FetchedPage> result;
+        if (waitNanos == 0) {
+            result = delegate.fetch(url, headers);
+        } else {
+            var delayed = CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS);
+            result = CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(ignored -> delegate.fetch(url, headers));
+        }
+        return result.whenComplete((page, error) -> guard.record(error == null && page.getStatusCode() < 500));
+    }
+
+    void removeIdleGuards() {
+        for (String host : guards.keySet()) {
+            guards.computeIfPresent(host, (key, guard) -> guard.isIdle() ? null : guard);
+        }
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        long last = sweptAt.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && sweptAt.compareAndSet(last, now)) {
+            removeIdleGuards();
+        }
+    }
+
+    public List<HostGuard> getGuards() {
+        List<HostGuard> list = new ArrayList<>(guards.values());
+        list.sort(Comparator.comparing(HostGuard::getHost));
+        return list;
+    }
+}
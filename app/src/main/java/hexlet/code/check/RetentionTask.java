@@ -0,0 +1,61 @@
+package hexlet.code.check;
+
+import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.UrlRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public final class RetentionTask implements AutoCloseable {
+    private final int retentionDays;
+    private final int batchSize;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "check-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RetentionTask(int retentionDays, int batchSize) {
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    public void start(Duration period) {
+        executor.scheduleWithFixedDelay(this::run, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public long runOnce() throws SQLException {
+        var cutoff = Timestamp.valueOf(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+        long rolledUp = 0;
+        long afterUrlId = 0;
+        var ids = UrlRepository.getIds(afterUrlId, batchSize);
+        while (!ids.isEmpty()) {
+            long lastUrlId = ids.get(ids.size() - 1);
+            rolledUp += CheckRepository.rollUpChecks(cutoff, afterUrlId, lastUrlId);
+            afterUrlId = lastUrlId;
+            ids = UrlRepository.getIds(afterUrlId, batchSize);
+        }
+        return rolledUp;
+    }
+
+    private void run() {
+        try {
+            long rolledUp = runOnce();
+            log.info("Rolled up {} checks older than {} days", rolledUp, retentionDays);
+        } catch (SQLException | RuntimeException e) {
+            log.error("Check retention failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package hexlet.code.check.extractor;
+
+import hexlet.code.check.CheckExtractor;
+
+import java.util.Map;
+import java.util.Set;
+
+public final class CanonicalLinkExtractor implements CheckExtractor {
+    private static final Set<String> TAGS = Set.of("link");
+
+    @Override
+    public String name() {
+        return "canonical";
+    }
+
+    @Override
+    public Set<String> tags() {
+        return TAGS;
+    }
+
+    @Override
+    public void startTag(String tag, Map<String, String> attributes, Map<String, Object> data) {
+        String rel = attributes.getOrDefault("rel", "");
+        String href = attributes.get("href");
+        if (href == null || data.containsKey("canonical")) {
+            return;
+        }
+        for (String value : rel.trim().split("\\s+")) {
+            if (value.equalsIgnoreCase("canonical")) {
+                data.put("canonical", href);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package hexlet.code.check.extractor;
+
+import hexlet.code.check.CheckExtractor;
+import hexlet.code.check.FetchedPage;
+
+import java.util.Map;
+
+public final class ContentLengthExtractor implements CheckExtractor {
+    private static final String KEY = "contentLength";
+
+    @Override
+    public String name() {
+        return "content-length";
+    }
+
+    @Override
+    public void response(FetchedPage page, Map<String, Object> data) {
+        page.getHeaders().firstValueAsLong("Content-Length").ifPresent(length -> data.put(KEY, length));
+    }
+
+    @Override
+    public void finish(long bodyBytes, Map<String, Object> data) {
+        if (bodyBytes >= 0) {
+            data.putIfAbsent(KEY, bodyBytes);
+        }
+    }
+}
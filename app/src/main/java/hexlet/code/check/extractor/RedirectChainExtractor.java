@@ -0,0 +1,28 @@
+package hexlet.code.check.extractor;
+
+import hexlet.code.check.CheckExtractor;
+import hexlet.code.check.FetchedPage;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+
+public final class RedirectChainExtractor implements CheckExtractor {
+    @Override
+    public String name() {
+        return "redirects";
+    }
+
+    @Override
+    public Set<String> responseKeys() {
+        return Set.of("redirects", "finalUrl");
+    }
+
+    @Override
+    public void response(FetchedPage page, Map<String, Object> data) {
+        if (!page.getRedirects().isEmpty()) {
+            data.put("redirects", page.getRedirects().stream().map(URI::toString).toList());
+            data.put("finalUrl", page.getUri().toString());
+        }
+    }
+}
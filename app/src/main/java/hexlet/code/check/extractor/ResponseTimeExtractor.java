@@ -0,0 +1,24 @@
+package hexlet.code.check.extractor;
+
+import hexlet.code.check.CheckExtractor;
+import hexlet.code.check.FetchedPage;
+
+import java.util.Map;
+import java.util.Set;
+
+public final class ResponseTimeExtractor implements CheckExtractor {
+    @Override
+    public String name() {
+        return "response-time";
+    }
+
+    @Override
+    public Set<String> responseKeys() {
+        return Set.of("responseTimeMs");
+    }
+
+    @Override
+    public void response(FetchedPage page, Map<String, Object> data) {
+        data.put("responseTimeMs", page.getResponseTime().toMillis());
+    }
+}
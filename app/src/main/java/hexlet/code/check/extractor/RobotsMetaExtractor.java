@@ -0,0 +1,39 @@
+package hexlet.code.check.extractor;
+
+import hexlet.code.check.CheckExtractor;
+import hexlet.code.check.FetchedPage;
+
+import java.util.Map;
+import java.util.Set;
+
+public final class RobotsMetaExtractor implements CheckExtractor {
+    private static final Set<String> TAGS = Set.of("meta");
+
+    @Override
+    public String name() {
+        return "robots";
+    }
+
+    @Override
+    public Set<String> tags() {
+        return TAGS;
+    }
+
+    @Override
+    public Set<String> responseKeys() {
+        return Set.of("robotsHeader");
+    }
+
+    @Override
+    public void response(FetchedPage page, Map<String, Object> data) {
+        page.getHeaders().firstValue("X-Robots-Tag").ifPresent(value -> data.put("robotsHeader", value));
+    }
+
+    @Override
+    public void startTag(String tag, Map<String, String> attributes, Map<String, Object> data) {
+        String content = attributes.get("content");
+        if (content != null && "robots".equalsIgnoreCase(attributes.get("name"))) {
+            data.putIfAbsent("robots", content);
+        }
+    }
+}
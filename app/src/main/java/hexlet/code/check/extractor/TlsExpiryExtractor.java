@@ -0,0 +1,30 @@
+package hexlet.code.check.extractor;
+
+import hexlet.code.check.CheckExtractor;
+import hexlet.code.check.FetchedPage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+public final class TlsExpiryExtractor implements CheckExtractor {
+    @Override
+    public String name() {
+        return "tls-expiry";
+    }
+
+    @Override
+    public Set<String> responseKeys() {
+        return Set.of("tlsExpiresAt", "tlsDaysLeft");
+    }
+
+    @Override
+    public void response(FetchedPage page, Map<String, Object> data) {
+        var expiry = page.getCertificateExpiry();
+        if (expiry != null) {
+            data.put("tlsExpiresAt", expiry.toString());
+            data.put("tlsDaysLeft", Duration.between(Instant.now(), expiry).toDays());
+        }
+    }
+}
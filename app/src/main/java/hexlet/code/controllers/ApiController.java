@@ -0,0 +1,218 @@
+package hexlet.code.controllers;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.util.RawValue;
+import hexlet.code.model.Url;
+import hexlet.code.model.UrlCheck;
+import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.UrlRepository;
+import hexlet.code.util.NamedRoutes;
+import io.javalin.http.BadRequestResponse;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+import io.javalin.http.NotFoundResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+public final class ApiController {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    private static final String EXPORT_RETRY_AFTER_SECONDS = "30";
+    private static final String CSV_HEADER =
+            "id,url_id,status_code,title,h1,description,created_at,content_hash,last_seen_at,extras\n";
+    // the response stream belongs to Javalin, writers only flush it
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .rootValueSeparator((String) null)
+            .build();
+    private final Semaphore exportSlots;
+
+    public ApiController(int maxExports) {
+        this.exportSlots = new Semaphore(maxExports);
+    }
+
+    public static void listUrls(Context ctx) throws SQLException {
+        long after = ctx.queryParamAsClass("after", Long.class).getOrDefault(0L);
+        int limit = limit(ctx);
+        List<Url> urls = UrlRepository.getPage(after, limit + 1);
+        String next = null;
+        if (urls.size() > limit) {
+            urls = urls.subList(0, limit);
+            next = NamedRoutes.apiUrlsPath(urls.get(limit - 1).getId(), limit);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("items", urls.stream().map(ApiController::toJson).toList());
+        body.put("next", next);
+        ctx.json(body);
+    }
+
+    public static void listChecks(Context ctx) throws SQLException {
+        long id = ctx.pathParamAsClass("id", Long.class).get();
+        long after = ctx.queryParamAsClass("after", Long.class).getOrDefault(0L);
+        int limit = limit(ctx);
+        UrlRepository.find(id).orElseThrow(() -> new NotFoundResponse("URL with id:" + id + " not found"));
+        List<UrlCheck> checks = CheckRepository.getChecksPage(id, after, limit + 1);
+        String next = null;
+        if (checks.size() > limit) {
+            checks = checks.subList(0, limit);
+            next = NamedRoutes.apiUrlChecksPath(id, checks.get(limit - 1).getId(), limit);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("items", checks.stream().map(ApiController::toJson).toList());
+        body.put("next", next);
+        ctx.json(body);
+    }
+
+    public void exportChecks(Context ctx) throws IOException, SQLException {
+        String format = ctx.queryParamAsClass("format", String.class).getOrDefault("ndjson");
+        if (!exportSlots.tryAcquire()) {
+            ctx.header(Header.RETRY_AFTER, EXPORT_RETRY_AFTER_SECONDS);
+            ctx.status(HttpStatus.SERVICE_UNAVAILABLE).json(Map.of("error", "Too many exports are running"));
+            return;
+        }
+        try {
+            export(ctx, format);
+        } finally {
+            exportSlots.release();
+        }
+    }
+
+    private static void export(Context ctx, String format) throws IOException, SQLException {
+        switch (format) {
+            case "ndjson" -> {
+                ctx.contentType("application/x-ndjson");
+                ctx.header(Header.CONTENT_DISPOSITION, "attachment; filename=\"checks.ndjson\"");
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(ctx.outputStream(), JsonEncoding.UTF8)) {
+                    CheckRepository.exportChecks(check -> {
+                        writeJson(generator, check);
+                        generator.writeRaw('\n');
+                    });
+                }
+            }
+            case "csv" -> {
+                ctx.contentType("text/csv; charset=utf-8");
+                ctx.header(Header.CONTENT_DISPOSITION, "attachment; filename=\"checks.csv\"");
+                Writer writer = new BufferedWriter(new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8));
+                writer.write(CSV_HEADER);
+                CheckRepository.exportChecks(check -> writeCsv(writer, check));
+                writer.flush();
+            }
+            default -> throw new BadRequestResponse("Unknown export format: " + format);
+        }
+    }
+
+    private static int limit(Context ctx) {
+        int limit = ctx.queryParamAsClass("limit", Integer.class)
+                .check(value -> value > 0, "limit must be positive")
+                .getOrDefault(DEFAULT_LIMIT);
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private static Map<String, Object> toJson(Url url) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", url.getId());
+        json.put("name", url.getName());
+        json.put("createdAt", format(url.getCreatedAt()));
+        var lastCheck = url.getLastCheck();
+        if (lastCheck == null) {
+            json.put("lastCheck", null);
+        } else {
+            Map<String, Object> check = new LinkedHashMap<>();
+            check.put("id", lastCheck.getId());
+            check.put("statusCode", lastCheck.getStatusCode());
+            check.put("createdAt", format(lastCheck.getCreatedAt()));
+            json.put("lastCheck", check);
+        }
+        return json;
+    }
+
+    private static Map<String, Object> toJson(UrlCheck check) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", check.getId());
+        json.put("urlId", check.getUrlId());
+        json.put("statusCode", check.getStatusCode());
+        json.put("title", check.getTitle());
+        json.put("h1", check.getH1());
+        json.put("description", check.getDescription());
+        json.put("createdAt", format(check.getCreatedAt()));
+        json.put("contentHash", check.getContentHash());
+        json.put("lastSeenAt", format(check.getLastSeenAt()));
+        json.put("extras", check.getExtras() == null ? null : new RawValue(check.getExtras()));
+        return json;
+    }
+
+    private static void writeJson(JsonGenerator generator, UrlCheck check) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", check.getId());
+        generator.writeNumberField("urlId", check.getUrlId());
+        generator.writeNumberField("statusCode", check.getStatusCode());
+        generator.writeStringField("title", check.getTitle());
+        generator.writeStringField("h1", check.getH1());
+        generator.writeStringField("description", check.getDescription());
+        generator.writeStringField("createdAt", format(check.getCreatedAt()));
+        generator.writeStringField("contentHash", check.getContentHash());
+        generator.writeStringField("lastSeenAt", format(check.getLastSeenAt()));
+        generator.writeFieldName("extras");
+        if (check.getExtras() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeRawValue(check.getExtras());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeCsv(Writer writer, UrlCheck check) throws IOException {
+        writer.write(Long.toString(check.getId()));
+        writer.write(',');
+        writer.write(Long.toString(check.getUrlId()));
+        writer.write(',');
+        writer.write(Integer.toString(check.getStatusCode()));
+        writer.write(',');
+        writeCsvField(writer, check.getTitle());
+        writer.write(',');
+        writeCsvField(writer, check.getH1());
+        writer.write(',');
+        writeCsvField(writer, check.getDescription());
+        writer.write(',');
+        writeCsvField(writer, format(check.getCreatedAt()));
+        writer.write(',');
+        writeCsvField(writer, check.getContentHash());
+        writer.write(',');
+        writeCsvField(writer, format(check.getLastSeenAt()));
+        writer.write(',');
+        writeCsvField(writer, check.getExtras());
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String format(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toString();
+    }
+}
@@ -1,9 +1,13 @@
 package hexlet.code.controllers;
 
+import hexlet.code.util.Templates;
 import io.javalin.http.Context;
 
+import java.io.IOException;
+import java.util.Map;
+
 public class RootController {
-    public static void index(Context ctx) {
-        ctx.render("index.jte");
+    public static void index(Context ctx) throws IOException {
+        Templates.render(ctx, "index.jte", Map.of());
     }
 }
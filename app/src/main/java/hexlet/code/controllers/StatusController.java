@@ -0,0 +1,67 @@
+package hexlet.code.controllers;
+
+import hexlet.code.check.PoliteFetcher;
+import hexlet.code.metrics.Histogram;
+import hexlet.code.metrics.Metrics;
+import hexlet.code.metrics.PoolMetrics;
+import io.javalin.http.Context;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StatusController {
+    @Setter
+    private static PoliteFetcher politeFetcher;
+    @Setter
+    private static PoolMetrics poolMetrics;
+
+    public static void hosts(Context ctx) {
+        List<Map<String, Object>> hosts = politeFetcher.getGuards().stream()
+                .map(guard -> {
+                    Map<String, Object> host = new LinkedHashMap<>();
+                    host.put("host", guard.getHost());
+                    host.put("state", guard.getState().name());
+                    host.put("consecutiveFailures", guard.getConsecutiveFailures());
+                    host.put("tokens", guard.getTokens());
+                    host.put("openedAt", guard.getOpenedAt() == null ? null : guard.getOpenedAt().toString());
+                    return host;
+                })
+                .toList();
+        ctx.json(hosts);
+    }
+
+    public static void pool(Context ctx) {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("active", poolMetrics.getActive());
+        pool.put("idle", poolMetrics.getIdle());
+        pool.put("total", poolMetrics.getTotal());
+        pool.put("max", poolMetrics.getMax());
+        pool.put("waiting", poolMetrics.getWaiting());
+        pool.put("timeouts", poolMetrics.getTimeouts());
+        pool.put("acquire", toJson(poolMetrics.getAcquireLatency()));
+        pool.put("usage", toJson(poolMetrics.getUsageTime()));
+        ctx.json(pool);
+    }
+
+    public static void metrics(Context ctx) {
+        ctx.contentType("text/plain; version=0.0.4; charset=utf-8");
+        ctx.result(Metrics.scrape());
+    }
+
+    private static Map<String, Object> toJson(Histogram histogram) {
+        double[] bounds = histogram.getBounds();
+        long[] counts = histogram.getCumulativeCounts();
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i++) {
+            buckets.put(String.valueOf(bounds[i]), counts[i]);
+        }
+        buckets.put("+Inf", counts[bounds.length]);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("count", histogram.getCount());
+        json.put("sumSeconds", histogram.getSumSeconds());
+        json.put("buckets", buckets);
+        return json;
+    }
+}
@@ -1,35 +1,67 @@
 package hexlet.code.controllers;
 
-import com.mashape.unirest.http.exceptions.UnirestException;
+import hexlet.code.check.CheckEngine;
+import hexlet.code.check.CheckJob;
+import hexlet.code.check.CheckJobs;
+import hexlet.code.dto.BasePage;
 import hexlet.code.dto.MainPage;
 import hexlet.code.dto.UrlPage;
 import hexlet.code.dto.UrlsPage;
 import hexlet.code.model.Url;
 import hexlet.code.model.UrlCheck;
+import hexlet.code.repository.BaseRepository;
 import hexlet.code.repository.CheckRepository;
 import hexlet.code.repository.UrlRepository;
 import hexlet.code.util.NamedRoutes;
+import hexlet.code.util.PageCache;
+import hexlet.code.util.Templates;
+import hexlet.code.util.UrlNormalizer;
 import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
 import io.javalin.http.NotFoundResponse;
+import io.javalin.http.UploadedFile;
+import lombok.Setter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import static io.javalin.rendering.template.TemplateUtil.model;
 
 public class UrlsController {
-    public static void create(Context ctx) throws SQLException {
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    @Setter
+    private static CheckEngine checkEngine;
+    @Setter
+    private static CheckJobs checkJobs;
+    @Setter
+    private static boolean asyncChecks;
+    @Setter
+    private static PageCache pageCache;
+    @Setter
+    private static int checkAllChunkSize;
+
+    public static void create(Context ctx) throws IOException, SQLException {
         var inputUrl = ctx.formParam("url");
-        URL url = null;
+        String urlString = null;
         try {
             assert inputUrl != null;
             if (!inputUrl.isEmpty()) {
-                URI uri = URI.create(inputUrl);
-                url = uri.toURL();
+                urlString = UrlNormalizer.normalize(inputUrl);
             }
         } catch (MalformedURLException e) {
             ctx.status(400);
@@ -38,22 +70,20 @@ public class UrlsController {
             var page = new MainPage();
             page.setFlash(ctx.consumeSessionAttribute("flash"));
             page.setFlashType(ctx.consumeSessionAttribute("flash-type"));
-            ctx.render("index.jte", model("page", page));
+            Templates.render(ctx, "index.jte", model("page", page));
             return;
         }
 
-        assert url != null;
-        String urlString = url.getProtocol() + "://" + url.getAuthority();
+        Objects.requireNonNull(urlString, "url");
         Timestamp currentDate = new Timestamp(System.currentTimeMillis());
         Url urlModel = new Url(urlString, currentDate);
 
-        if (UrlRepository.findByName(urlString).isEmpty()) {
-            UrlRepository.save(urlModel);
+        if (UrlRepository.saveIfAbsent(urlModel)) {
             ctx.status(200);
             ctx.sessionAttribute("flash", "success");
             ctx.sessionAttribute("flash-type", "Страница успешно добавлена");
             ctx.redirect(NamedRoutes.listUrlsPath());
-        } else if (UrlRepository.findByName(urlString).isPresent()) {
+        } else {
             ctx.status(303);
             ctx.sessionAttribute("flash", "unchanged");
             ctx.sessionAttribute("flash-type", "Страница уже существует");
@@ -61,42 +91,226 @@ public class UrlsController {
         }
     }
 
-    public static void showListUrls(Context ctx) throws SQLException {
-        List<Url> urlsList = UrlRepository.getEntities();
-        var checks = CheckRepository.getListLastCheck();
-        var page = new UrlsPage(urlsList, checks);
+    public static void importUrls(Context ctx) throws IOException, SQLException {
+        UploadedFile file = ctx.uploadedFile("file");
+        ImportReport report;
+        try (InputStream body = file != null ? file.content() : ctx.bodyInputStream();
+             var reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            report = importUrls(reader);
+        }
+        if (acceptsJson(ctx)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("accepted", report.accepted());
+            json.put("duplicates", report.duplicates());
+            json.put("invalid", report.invalid());
+            ctx.json(json);
+            return;
+        }
+        ctx.sessionAttribute("flash", "success");
+        ctx.sessionAttribute("flash-type", "Импорт завершён: добавлено " + report.accepted()
+                + ", уже были " + report.duplicates() + ", некорректных " + report.invalid());
+        ctx.redirect(NamedRoutes.listUrlsPath());
+    }
+
+    private static ImportReport importUrls(BufferedReader reader) throws IOException, SQLException {
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        Set<String> batch = new LinkedHashSet<>();
+        long entries = 0;
+        long accepted = 0;
+        long invalid = 0;
+        String line = reader.readLine();
+        if (line != null && isHeader(firstColumn(line))) {
+            line = reader.readLine();
+        }
+        while (line != null) {
+            String entry = firstColumn(line);
+            if (!entry.isEmpty()) {
+                entries++;
+                try {
+                    batch.add(UrlNormalizer.normalize(entry.contains("://") ? entry : "https://" + entry));
+                } catch (MalformedURLException e) {
+                    invalid++;
+                }
+            }
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                accepted += UrlRepository.saveAllIfAbsent(batch, createdAt).size();
+                batch.clear();
+            }
+            line = reader.readLine();
+        }
+        accepted += UrlRepository.saveAllIfAbsent(batch, createdAt).size();
+        return new ImportReport(accepted, entries - accepted - invalid, invalid);
+    }
+
+    private static String firstColumn(String line) {
+        int end = line.length();
+        for (char separator : new char[] {',', ';', '\t'}) {
+            int index = line.indexOf(separator);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        String column = line.substring(0, end).strip();
+        if (column.length() >= 2 && column.startsWith("\"") && column.endsWith("\"")) {
+            column = column.substring(1, column.length() - 1).strip();
+        }
+        return column;
+    }
+
+    private static boolean isHeader(String column) {
+        return column.equalsIgnoreCase("url") || column.equalsIgnoreCase("name") || column.equalsIgnoreCase("domain");
+    }
+
+    private record ImportReport(long accepted, long duplicates, long invalid) {
+    }
+
+    public static void showListUrls(Context ctx) throws IOException, SQLException {
+        long after = ctx.queryParamAsClass("after", Long.class).getOrDefault(0L);
+        int limit = Math.min(ctx.queryParamAsClass("limit", Integer.class)
+                .check(value -> value > 0, "limit must be positive")
+                .getOrDefault(UrlsPage.DEFAULT_LIMIT), UrlsPage.MAX_LIMIT);
+        if (isCacheable(ctx) && !checkEngine.isRunning()) {
+            renderCached(ctx, "urls:" + after + ":" + limit, "urls/showListUrls.jte", () -> listPage(after, limit));
+            return;
+        }
+        var page = listPage(after, limit);
+        checkEngine.getCurrent().ifPresent(page::setProgress);
         page.setFlash(ctx.consumeSessionAttribute("flash"));
         page.setFlashType(ctx.consumeSessionAttribute("flash-type"));
-        ctx.render("urls/showListUrls.jte", model("page", page));
+        Templates.render(ctx, "urls/showListUrls.jte", model("page", page));
+    }
+
+    private static UrlsPage listPage(long after, int limit) throws SQLException {
+        List<Url> urlsList = UrlRepository.getPage(after, limit + 1);
+        Long nextAfter = null;
+        if (urlsList.size() > limit) {
+            urlsList = urlsList.subList(0, limit);
+            nextAfter = urlsList.get(limit - 1).getId();
+        }
+        return new UrlsPage(urlsList, after, limit, nextAfter);
     }
 
     public static void saveCheckUrl(Context ctx) throws SQLException {
         long id = ctx.pathParamAsClass("id", Long.class).get();
         Url url = UrlRepository.find(id)
                 .orElseThrow(() -> new NotFoundResponse("URL with id:" + id + " not found"));
+        if (acceptsJson(ctx) || asyncChecks) {
+            submitCheck(ctx, url);
+            return;
+        }
         try {
-            UrlCheck checks = CheckRepository.parsingURL(url.getName());
+            var previous = CheckRepository.findLastCheck(url.getId()).orElse(null);
+            UrlCheck checks = CheckRepository.parsingURL(url.getName(), previous);
             checks.setUrlId(url.getId());
             CheckRepository.saveCheckedUrl(checks);
             ctx.sessionAttribute("flash", "success");
             ctx.sessionAttribute("flash-type", "Страница успешно проверена");
-        } catch (UnirestException e) {
+        } catch (IOException e) {
             ctx.sessionAttribute("flash", "danger");
             ctx.sessionAttribute("flash-type", "Некорректный адрес");
         }
         ctx.redirect(NamedRoutes.urlPath(id));
     }
 
-    public static void showUrl(Context ctx) throws SQLException {
+    private static void submitCheck(Context ctx, Url url) {
+        boolean json = acceptsJson(ctx);
+        CheckJob job;
+        try {
+            job = checkJobs.submit(url);
+        } catch (RejectedExecutionException e) {
+            ctx.header(Header.RETRY_AFTER, "5");
+            if (json) {
+                ctx.status(HttpStatus.SERVICE_UNAVAILABLE).json(Map.of("error", "Check queue is full"));
+            } else {
+                ctx.sessionAttribute("flash", "danger");
+                ctx.sessionAttribute("flash-type", "Очередь проверок переполнена, попробуйте позже");
+                ctx.redirect(NamedRoutes.urlPath(url.getId()));
+            }
+            return;
+        }
+        if (json) {
+            ctx.header(Header.LOCATION, NamedRoutes.checkJobPath(job.getId()));
+            ctx.status(HttpStatus.ACCEPTED).json(toJson(job));
+        } else {
+            ctx.sessionAttribute("flash", "success");
+            ctx.sessionAttribute("flash-type", "Проверка запущена");
+            ctx.redirect(NamedRoutes.urlPath(url.getId()));
+        }
+    }
+
+    public static void showCheckJob(Context ctx) {
+        String id = ctx.pathParam("id");
+        CheckJob job = checkJobs.find(id)
+                .orElseThrow(() -> new NotFoundResponse("Check job with id:" + id + " not found"));
+        ctx.json(toJson(job));
+    }
+
+    private static Map<String, Object> toJson(CheckJob job) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", job.getId());
+        json.put("urlId", job.getUrlId());
+        json.put("status", job.getStatus().name());
+        json.put("checkId", job.getCheckId());
+        json.put("error", job.getError());
+        json.put("createdAt", job.getCreatedAt().toString());
+        return json;
+    }
+
+    private static boolean acceptsJson(Context ctx) {
+        String accept = ctx.header(Header.ACCEPT);
+        return accept != null && accept.contains("application/json");
+    }
+
+    public static void checkAll(Context ctx) throws SQLException {
+        if (checkEngine.isRunning()) {
+            ctx.sessionAttribute("flash", "unchanged");
+            ctx.sessionAttribute("flash-type", "Проверка уже выполняется");
+        } else {
+            checkEngine.startAll(checkAllChunkSize);
+            ctx.sessionAttribute("flash", "success");
+            ctx.sessionAttribute("flash-type", "Проверка всех сайтов запущена");
+        }
+        ctx.redirect(NamedRoutes.listUrlsPath());
+    }
+
+    public static void showUrl(Context ctx) throws IOException, SQLException {
         long id = ctx.pathParamAsClass("id", Long.class).get();
-        Url url = UrlRepository.find(id)
-                .orElseThrow(() -> new NotFoundResponse("URL with id:" + id + " not found"));
-        var checksList = CheckRepository.getListCheck(id);
-        UrlPage page = new UrlPage(url, checksList);
+        if (isCacheable(ctx) && checkJobs.findActive(id).isEmpty()) {
+            renderCached(ctx, "url:" + id, "urls/showUrl.jte", () -> urlPage(id));
+            return;
+        }
+        UrlPage page = urlPage(id);
+        checkJobs.findActive(id).ifPresent(page::setPendingJob);
         page.setFlash(ctx.consumeSessionAttribute("flash"));
         page.setFlashType(ctx.consumeSessionAttribute("flash-type"));
-        ctx.render("urls/showUrl.jte", model("page", page));
+        Templates.render(ctx, "urls/showUrl.jte", model("page", page));
     }
-}
 
+    private static UrlPage urlPage(long id) throws SQLException {
+        Url url = UrlRepository.find(id)
+                .orElseThrow(() -> new NotFoundResponse("URL with id:" + id + " not found"));
+        var checks = CheckRepository.getRecentChecks(id, UrlPage.RECENT_CHECKS);
+        var days = CheckRepository.getCheckDays(id, UrlPage.RECENT_DAYS);
+        return new UrlPage(url, checks, days);
+    }
 
+    private static boolean isCacheable(Context ctx) {
+        return ctx.sessionAttribute("flash") == null;
+    }
+
+    // the version is read before loading, so a concurrent write leaves the entry stale
+    private static void renderCached(Context ctx, String key, String template, PageLoader loader)
+            throws IOException, SQLException {
+        long version = BaseRepository.getDataVersion();
+        var entry = pageCache.get(key, version);
+        if (entry == null) {
+            entry = pageCache.put(key, version, Templates.renderBytes(template, model("page", loader.load())));
+        }
+        pageCache.send(ctx, entry);
+    }
+
+    @FunctionalInterface
+    private interface PageLoader {
+        BasePage load() throws SQLException;
+    }
+}
@@ -1,15 +1,28 @@
 package hexlet.code.dto;
 
+import hexlet.code.check.CheckJob;
+import hexlet.code.model.CheckDay;
 import hexlet.code.model.UrlCheck;
 import hexlet.code.model.Url;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
 
 @Getter
-@AllArgsConstructor
 public class UrlPage extends BasePage {
+    public static final int RECENT_CHECKS = 100;
+    public static final int RECENT_DAYS = 30;
+
     private Url url;
     private List<UrlCheck> checks;
+    private List<CheckDay> days;
+    @Setter
+    private CheckJob pendingJob;
+
+    public UrlPage(Url url, List<UrlCheck> checks, List<CheckDay> days) {
+        this.url = url;
+        this.checks = checks;
+        this.days = days;
+    }
 }
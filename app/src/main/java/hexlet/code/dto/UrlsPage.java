@@ -1,16 +1,28 @@
 package hexlet.code.dto;
 
-import hexlet.code.model.UrlCheck;
+import hexlet.code.check.CheckProgress;
 import hexlet.code.model.Url;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
-import java.util.Map;
 
 @Getter
-@AllArgsConstructor
 public class UrlsPage extends BasePage {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
     private List<Url> urls;
-    private Map<Long, UrlCheck> checks;
+    private long after;
+    private int limit;
+    private Long nextAfter;
+    @Setter
+    private CheckProgress progress;
+
+    public UrlsPage(List<Url> urls, long after, int limit, Long nextAfter) {
+        this.urls = urls;
+        this.after = after;
+        this.limit = limit;
+        this.nextAfter = nextAfter;
+    }
 }
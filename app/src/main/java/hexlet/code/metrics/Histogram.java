@@ -0,0 +1,68 @@
+package hexlet.code.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Histogram {
+    private static final double[] LATENCY_BUCKETS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private final double[] bounds;
+    private final long[] boundNanos;
+    private final AtomicLongArray counts;
+    private final LongAdder sumNanos = new LongAdder();
+
+    public static double[] latencyBuckets() {
+        return LATENCY_BUCKETS.clone();
+    }
+
+    public Histogram() {
+        this(LATENCY_BUCKETS);
+    }
+
+    public Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.boundNanos = Arrays.stream(bounds).mapToLong(bound -> Math.round(bound * TimeUnit.SECONDS.toNanos(1)))
+                .toArray();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public void recordNanos(long nanos) {
+        int bucket = 0;
+        while (bucket < boundNanos.length && nanos > boundNanos[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        sumNanos.add(nanos);
+    }
+
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    public long[] getCumulativeCounts() {
+        long[] cumulative = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += counts.get(i);
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    public long getCount() {
+        long[] cumulative = getCumulativeCounts();
+        return cumulative[cumulative.length - 1];
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
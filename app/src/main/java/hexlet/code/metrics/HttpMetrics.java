@@ -0,0 +1,54 @@
+package hexlet.code.metrics;
+
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HttpMetrics {
+    private static final String START = "metrics-start";
+    private static final int MAX_STATUS = 600;
+
+    private static final Map<HandlerType, Map<String, Histogram>> ROUTES = new EnumMap<>(HandlerType.class);
+    private static final AtomicReferenceArray<LongAdder> STATUSES = new AtomicReferenceArray<>(MAX_STATUS);
+
+    static {
+        for (HandlerType type : HandlerType.values()) {
+            ROUTES.put(type, new ConcurrentHashMap<>());
+        }
+    }
+
+    public static void start(Context ctx) {
+        ctx.attribute(START, System.nanoTime());
+    }
+
+    public static void finish(Context ctx) {
+        Long start = ctx.attribute(START);
+        String route = ctx.endpointHandlerPath();
+        if (start != null && route != null && !route.isEmpty()) {
+            var latency = ROUTES.get(ctx.method()).get(route);
+            if (latency == null) {
+                latency = ROUTES.get(ctx.method()).computeIfAbsent(route, path -> Metrics.histogram(
+                        "http_request_duration_seconds", "Time spent handling a request",
+                        Metrics.labels("method", ctx.method().name(), "route", path)));
+            }
+            latency.recordSince(start);
+        }
+        status(ctx.statusCode()).increment();
+    }
+
+    private static LongAdder status(int code) {
+        int index = code >= 0 && code < MAX_STATUS ? code : 0;
+        var counter = STATUSES.get(index);
+        if (counter == null) {
+            counter = Metrics.counter("http_responses_total", "Responses by status code",
+                    Metrics.labels("status", String.valueOf(index)));
+            STATUSES.set(index, counter);
+        }
+        return counter;
+    }
+}
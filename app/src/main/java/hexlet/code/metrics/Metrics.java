@@ -0,0 +1,105 @@
+package hexlet.code.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class Metrics {
+    private static final Map<String, Family> FAMILIES = new TreeMap<>();
+
+    private record Family(String help, String type, Map<String, Object> series) {
+    }
+
+    public static Histogram histogram(String name, String help, String labels) {
+        return (Histogram) series(name, help, "histogram", labels, Histogram::new);
+    }
+
+    public static LongAdder counter(String name, String help, String labels) {
+        return (LongAdder) series(name, help, "counter", labels, LongAdder::new);
+    }
+
+    public static void counter(String name, String help, String labels, LongSupplier value) {
+        replace(name, help, "counter", labels, value);
+    }
+
+    public static void gauge(String name, String help, String labels, DoubleSupplier value) {
+        replace(name, help, "gauge", labels, value);
+    }
+
+    public static String labels(String... pairs) {
+        var labels = new StringBuilder();
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            if (!labels.isEmpty()) {
+                labels.append(',');
+            }
+            labels.append(pairs[i]).append("=\"")
+                    .append(pairs[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return labels.toString();
+    }
+
+    public static String scrape() {
+        var text = new StringBuilder();
+        synchronized (FAMILIES) {
+            FAMILIES.forEach((name, family) -> {
+                text.append("# HELP ").append(name).append(' ').append(family.help()).append('\n');
+                text.append("# TYPE ").append(name).append(' ').append(family.type()).append('\n');
+                family.series().forEach((labels, series) -> write(text, name, labels, series));
+            });
+        }
+        return text.toString();
+    }
+
+    private static Object series(String name, String help, String type, String labels, Supplier<Object> factory) {
+        synchronized (FAMILIES) {
+            return family(name, help, type).series().computeIfAbsent(labels, key -> factory.get());
+        }
+    }
+
+    private static void replace(String name, String help, String type, String labels, Object value) {
+        synchronized (FAMILIES) {
+            family(name, help, type).series().put(labels, value);
+        }
+    }
+
+    private static Family family(String name, String help, String type) {
+        var family = FAMILIES.computeIfAbsent(name, key -> new Family(help, type, new LinkedHashMap<>()));
+        if (!family.type().equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type());
+        }
+        return family;
+    }
+
+    private static void write(StringBuilder text, String name, String labels, Object series) {
+        if (series instanceof Histogram histogram) {
+            double[] bounds = histogram.getBounds();
+            long[] counts = histogram.getCumulativeCounts();
+            String prefix = labels.isEmpty() ? "" : labels + ",";
+            for (int i = 0; i < bounds.length; i++) {
+                sample(text, name + "_bucket", prefix + "le=\"" + bounds[i] + "\"", counts[i]);
+            }
+            sample(text, name + "_bucket", prefix + "le=\"+Inf\"", counts[bounds.length]);
+            sample(text, name + "_sum", labels, histogram.getSumSeconds());
+            sample(text, name + "_count", labels, counts[bounds.length]);
+        } else if (series instanceof LongAdder counter) {
+            sample(text, name, labels, counter.sum());
+        } else if (series instanceof LongSupplier counter) {
+            sample(text, name, labels, counter.getAsLong());
+        } else if (series instanceof DoubleSupplier gauge) {
+            sample(text, name, labels, gauge.getAsDouble());
+        }
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, Object value) {
+        text.append(name);
+        if (!labels.isEmpty()) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(value).append('\n');
+    }
+}
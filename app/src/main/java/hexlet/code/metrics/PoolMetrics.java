@@ -0,0 +1,76 @@
+package hexlet.code.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class PoolMetrics implements MetricsTrackerFactory {
+    @Getter
+    private final Histogram acquireLatency;
+    @Getter
+    private final Histogram usageTime;
+    private final LongAdder timeouts;
+    private volatile PoolStats poolStats;
+
+    public PoolMetrics() {
+        this.acquireLatency = Metrics.histogram("db_pool_acquire_duration_seconds",
+                "Time spent waiting for a connection", "");
+        this.usageTime = Metrics.histogram("db_pool_usage_duration_seconds",
+                "Time a connection was held before being returned", "");
+        this.timeouts = Metrics.counter("db_pool_timeouts_total", "Connection requests that timed out", "");
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats stats) {
+        this.poolStats = stats;
+        Metrics.gauge("db_pool_connections", "Connections in the pool by state", Metrics.labels("state", "active"),
+                this::getActive);
+        Metrics.gauge("db_pool_connections", "Connections in the pool by state", Metrics.labels("state", "idle"),
+                this::getIdle);
+        Metrics.gauge("db_pool_waiting_threads", "Threads waiting for a connection", "", this::getWaiting);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireLatency.recordNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageTime.recordNanos(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public int getActive() {
+        return poolStats == null ? 0 : poolStats.getActiveConnections();
+    }
+
+    public int getIdle() {
+        return poolStats == null ? 0 : poolStats.getIdleConnections();
+    }
+
+    public int getTotal() {
+        return poolStats == null ? 0 : poolStats.getTotalConnections();
+    }
+
+    public int getWaiting() {
+        return poolStats == null ? 0 : poolStats.getPendingThreads();
+    }
+
+    public int getMax() {
+        return poolStats == null ? 0 : poolStats.getMaxConnections();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+}
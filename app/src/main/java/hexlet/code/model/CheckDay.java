@@ -0,0 +1,21 @@
+package hexlet.code.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.sql.Date;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class CheckDay {
+    private long urlId;
+    private Date checkDate;
+    private int checks;
+    private int status2xx;
+    private int status3xx;
+    private int status4xx;
+    private int status5xx;
+    private int titleChanges;
+}
@@ -16,6 +16,8 @@ public class Url {
     private long id;
     private String name;
     private Timestamp createdAt;
+    private UrlCheck lastCheck;
+    private int checkFailures;
 
     public Url(String name, Timestamp createdAt) {
         this.name = name;
@@ -18,6 +18,12 @@ public class UrlCheck {
     private String h1;
     private String description;
     private Timestamp createdAt;
+    private String etag;
+    private String lastModified;
+    private String contentHash;
+    private Long simHash;
+    private Timestamp lastSeenAt;
+    private String extras;
 
     public UrlCheck(int statusCode, String title, String h1, String description, Timestamp createdAt) {
         this.statusCode = statusCode;
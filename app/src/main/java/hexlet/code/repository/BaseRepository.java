@@ -1,7 +1,30 @@
 package hexlet.code.repository;
 
 import com.zaxxer.hikari.HikariDataSource;
+import hexlet.code.metrics.Histogram;
+import hexlet.code.metrics.Metrics;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BaseRepository {
-    public static HikariDataSource dataSource;
+    private static final AtomicLong DATA_VERSION = new AtomicLong();
+
+    @Getter
+    @Setter
+    protected static HikariDataSource dataSource;
+
+    public static long getDataVersion() {
+        return DATA_VERSION.get();
+    }
+
+    protected static void dataChanged() {
+        DATA_VERSION.incrementAndGet();
+    }
+
+    protected static Histogram timer(String query) {
+        return Metrics.histogram("db_query_duration_seconds", "Time spent in a repository method",
+                Metrics.labels("query", query));
+    }
 }
@@ -1,114 +1,555 @@
 package hexlet.code.repository;
 
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hexlet.code.check.CachedCheck;
+import hexlet.code.check.CheckCache;
+import hexlet.code.check.FetchedPage;
+import hexlet.code.check.PageExtractor;
+import hexlet.code.check.PageFetcher;
+import hexlet.code.check.PageSummary;
+import hexlet.code.check.TimedInputStream;
+import hexlet.code.metrics.Histogram;
+import hexlet.code.metrics.Metrics;
+import hexlet.code.model.CheckDay;
 import hexlet.code.model.UrlCheck;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.select.Elements;
+import lombok.Setter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class CheckRepository extends BaseRepository {
+    private static final Histogram SAVE_CHECKED_URLS_TIME = timer("CheckRepository.saveCheckedUrls");
+    private static final Histogram GET_LIST_CHECK_TIME = timer("CheckRepository.getListCheck");
+    private static final Histogram FIND_LAST_CHECK_TIME = timer("CheckRepository.findLastCheck");
+    private static final Histogram GET_CHECKS_PAGE_TIME = timer("CheckRepository.getChecksPage");
+    private static final Histogram EXPORT_CHECKS_TIME = timer("CheckRepository.exportChecks");
+    private static final Histogram GET_RECENT_CHECKS_TIME = timer("CheckRepository.getRecentChecks");
+    private static final Histogram GET_CHECK_DAYS_TIME = timer("CheckRepository.getCheckDays");
+    private static final Histogram ROLL_UP_CHECKS_TIME = timer("CheckRepository.rollUpChecks");
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final ObjectMapper EXTRAS_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> EXTRAS_TYPE = new TypeReference<>() { };
+    private static final Histogram FETCH_TIME = phaseTimer("fetch");
+    private static final Histogram BODY_TIME = phaseTimer("body");
+    private static final Histogram PARSE_TIME = phaseTimer("parse");
+    private static final LongAdder[] STATUS_CLASSES = new LongAdder[6];
+    private static final LongAdder INSERTED_CHECKS = writeCounter("insert");
+    private static final LongAdder HEARTBEAT_CHECKS = writeCounter("heartbeat");
+
+    static {
+        for (int i = 1; i < STATUS_CLASSES.length; i++) {
+            STATUS_CLASSES[i] = Metrics.counter("check_responses_total", "Checked pages by response status class",
+                    Metrics.labels("status", i + "xx"));
+        }
+    }
+
+    @Setter
+    private static PageFetcher pageFetcher;
+    @Setter
+    private static PageExtractor pageExtractor;
+    @Setter
+    private static CheckCache checkCache;
+    @Setter
+    private static boolean storeOnChange;
+    @Setter
+    private static int simHashDistance;
 
     public static void saveCheckedUrl(UrlCheck urlCheck) throws SQLException {
-        String sql = "INSERT INTO url_checks "
-                + "(status_code, title, h1, description, url_id, created_at) VALUES (?, ?, ?, ?, ?, ?)";
-        try (var conn = dataSource.getConnection();
-             PreparedStatement pst = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pst.setInt(1, urlCheck.getStatusCode());
-            pst.setString(2, urlCheck.getTitle());
-            pst.setString(3, urlCheck.getH1());
-            pst.setString(4, urlCheck.getDescription());
-            pst.setLong(5, urlCheck.getUrlId());
-            pst.setTimestamp(6, urlCheck.getCreatedAt());
-            pst.executeUpdate();
+        saveCheckedUrls(List.of(urlCheck));
+    }
+
+    // ids are assigned on insert, so the latest check is the one with the newest created_at, then the highest id
+    public static void saveCheckedUrls(List<UrlCheck> urlChecks) throws SQLException {
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<UrlCheck> changed = urlChecks;
+                if (storeOnChange) {
+                    var latest = findLatestChecks(conn, urlChecks);
+                    changed = new ArrayList<>();
+                    List<UrlCheck> unchanged = new ArrayList<>();
+                    for (UrlCheck urlCheck : urlChecks) {
+                        var stored = latest.get(urlCheck.getUrlId());
+                        if (stored != null && isUnchanged(stored, urlCheck)) {
+                            urlCheck.setId(stored.getId());
+                            unchanged.add(urlCheck);
+                        } else {
+                            changed.add(urlCheck);
+                        }
+                    }
+                    updateLastSeen(conn, unchanged);
+                    HEARTBEAT_CHECKS.add(unchanged.size());
+                }
+                if (!changed.isEmpty()) {
+                    insertChecks(conn, changed);
+                    updateLatestChecks(conn, changed);
+                    INSERTED_CHECKS.add(changed.size());
+                }
+                conn.commit();
+                dataChanged();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            SAVE_CHECKED_URLS_TIME.recordSince(start);
+        }
+    }
+
+    private static void insertChecks(Connection conn, List<UrlCheck> urlChecks) throws SQLException {
+        String sql = "INSERT INTO url_checks (status_code, title, h1, description, url_id, created_at, etag, "
+                + "last_modified, content_hash, sim_hash, extras) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pst = conn.prepareStatement(sql, new String[] {"id"})) {
+            for (UrlCheck urlCheck : urlChecks) {
+                pst.setInt(1, urlCheck.getStatusCode());
+                pst.setString(2, urlCheck.getTitle());
+                pst.setString(3, urlCheck.getH1());
+                pst.setString(4, urlCheck.getDescription());
+                pst.setLong(5, urlCheck.getUrlId());
+                pst.setTimestamp(6, urlCheck.getCreatedAt());
+                pst.setString(7, urlCheck.getEtag());
+                pst.setString(8, urlCheck.getLastModified());
+                pst.setString(9, urlCheck.getContentHash());
+                pst.setObject(10, urlCheck.getSimHash(), Types.BIGINT);
+                pst.setString(11, urlCheck.getExtras());
+                pst.addBatch();
+            }
+            pst.executeBatch();
             ResultSet generatedKeys = pst.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                urlCheck.setId(generatedKeys.getLong(1));
-            } else {
-                throw new SQLException("DB have not returned an id after saving an entity");
+            for (UrlCheck urlCheck : urlChecks) {
+                if (generatedKeys.next()) {
+                    urlCheck.setId(generatedKeys.getLong(1));
+                } else {
+                    throw new SQLException("DB have not returned an id after saving an entity");
+                }
             }
         }
     }
 
+    private static Map<Long, UrlCheck> findLatestChecks(Connection conn, List<UrlCheck> urlChecks)
+            throws SQLException {
+        String sql = "SELECT c.* FROM urls u JOIN url_checks c ON c.id = u.last_check_id WHERE u.id IN ("
+                + String.join(", ", Collections.nCopies(urlChecks.size(), "?")) + ")";
+        Map<Long, UrlCheck> latest = new HashMap<>();
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            for (int i = 0; i < urlChecks.size(); i++) {
+                pst.setLong(i + 1, urlChecks.get(i).getUrlId());
+            }
+            ResultSet resultSet = pst.executeQuery();
+            while (resultSet.next()) {
+                var urlCheck = toUrlCheck(resultSet);
+                latest.put(urlCheck.getUrlId(), urlCheck);
+            }
+        }
+        return latest;
+    }
+
+    private static boolean isUnchanged(UrlCheck stored, UrlCheck urlCheck) {
+        if (stored.getStatusCode() != urlCheck.getStatusCode()
+                || !Objects.equals(stored.getTitle(), urlCheck.getTitle())
+                || !Objects.equals(stored.getH1(), urlCheck.getH1())
+                || !Objects.equals(stored.getDescription(), urlCheck.getDescription())
+                || urlCheck.getContentHash() == null) {
+            return false;
+        }
+        if (urlCheck.getContentHash().equals(stored.getContentHash())) {
+            return true;
+        }
+        return stored.getSimHash() != null && urlCheck.getSimHash() != null
+                && PageExtractor.distance(stored.getSimHash(), urlCheck.getSimHash()) <= simHashDistance;
+    }
+
+    private static void updateLastSeen(Connection conn, List<UrlCheck> urlChecks) throws SQLException {
+        if (urlChecks.isEmpty()) {
+            return;
+        }
+        String heartbeat = "UPDATE url_checks SET last_seen_at = ?, etag = ?, last_modified = ?, extras = ?, "
+                + "heartbeats = heartbeats + 1 WHERE id = ?";
+        String latest = "UPDATE urls SET last_checked_at = ? "
+                + "WHERE id = ? AND last_check_id = ? AND last_checked_at < ?";
+        try (PreparedStatement heartbeatPst = conn.prepareStatement(heartbeat);
+             PreparedStatement latestPst = conn.prepareStatement(latest)) {
+            for (UrlCheck urlCheck : urlChecks) {
+                heartbeatPst.setTimestamp(1, urlCheck.getCreatedAt());
+                heartbeatPst.setString(2, urlCheck.getEtag());
+                heartbeatPst.setString(3, urlCheck.getLastModified());
+                heartbeatPst.setString(4, urlCheck.getExtras());
+                heartbeatPst.setLong(5, urlCheck.getId());
+                heartbeatPst.addBatch();
+                latestPst.setTimestamp(1, urlCheck.getCreatedAt());
+                latestPst.setLong(2, urlCheck.getUrlId());
+                latestPst.setLong(3, urlCheck.getId());
+                latestPst.setTimestamp(4, urlCheck.getCreatedAt());
+                latestPst.addBatch();
+                urlCheck.setLastSeenAt(urlCheck.getCreatedAt());
+            }
+            heartbeatPst.executeBatch();
+            latestPst.executeBatch();
+        }
+    }
+
+    private static void updateLatestChecks(Connection conn, List<UrlCheck> urlChecks) throws SQLException {
+        String sql = "UPDATE urls SET last_check_id = ?, last_status_code = ?, last_checked_at = ? "
+                + "WHERE id = ? AND (last_check_id IS NULL OR last_checked_at < ? "
+                + "OR (last_checked_at = ? AND last_check_id < ?))";
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            for (UrlCheck urlCheck : urlChecks) {
+                pst.setLong(1, urlCheck.getId());
+                pst.setInt(2, urlCheck.getStatusCode());
+                pst.setTimestamp(3, urlCheck.getCreatedAt());
+                pst.setLong(4, urlCheck.getUrlId());
+                pst.setTimestamp(5, urlCheck.getCreatedAt());
+                pst.setTimestamp(6, urlCheck.getCreatedAt());
+                pst.setLong(7, urlCheck.getId());
+                pst.addBatch();
+            }
+            pst.executeBatch();
+        }
+    }
+
     public static List<UrlCheck> getListCheck(long id) throws SQLException {
         String sql = "SELECT * FROM url_checks WHERE url_id = ? ORDER BY created_at DESC";
         List<UrlCheck> listChecks = new ArrayList<>();
+        long start = System.nanoTime();
         try (var conn = dataSource.getConnection();
              PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setLong(1, id);
             ResultSet resultSet = pst.executeQuery();
             while (resultSet.next()) {
-                var idCheck = resultSet.getLong("id");
-                var urlId = resultSet.getLong("url_id");
-                var status = resultSet.getInt("status_code");
-                var title = resultSet.getString("title");
-                var h1 = resultSet.getString("h1");
-                var description = resultSet.getString("description");
-                var createdAt = resultSet.getTimestamp("created_at");
-                var urlCheck = new UrlCheck(status, title, h1, description, createdAt);
-                urlCheck.setUrlId(urlId);
-                urlCheck.setId(idCheck);
-                listChecks.add(urlCheck);
+                listChecks.add(toUrlCheck(resultSet));
             }
             return listChecks;
+        } finally {
+            GET_LIST_CHECK_TIME.recordSince(start);
         }
     }
 
-    public static Map<Long, UrlCheck> getListLastCheck() throws SQLException {
-        String sql = "SELECT DISTINCT ON (url_id) * FROM url_checks "
-                + " ORDER BY url_id DESC, id DESC";
-        Map<Long, UrlCheck> listChecks = new HashMap<>();
+    public static Optional<UrlCheck> findLastCheck(long urlId) throws SQLException {
+        String sql = "SELECT c.* FROM urls u JOIN url_checks c ON c.id = u.last_check_id WHERE u.id = ?";
+        long start = System.nanoTime();
         try (var conn = dataSource.getConnection();
              PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, urlId);
+            ResultSet resultSet = pst.executeQuery();
+            if (resultSet.next()) {
+                return Optional.of(toUrlCheck(resultSet));
+            }
+        } finally {
+            FIND_LAST_CHECK_TIME.recordSince(start);
+        }
+        return Optional.empty();
+    }
+
+    public static List<UrlCheck> getRecentChecks(long urlId, int limit) throws SQLException {
+        String sql = "SELECT * FROM url_checks WHERE url_id = ? ORDER BY id DESC LIMIT ?";
+        List<UrlCheck> checks = new ArrayList<>();
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, urlId);
+            pst.setInt(2, limit);
             ResultSet resultSet = pst.executeQuery();
             while (resultSet.next()) {
-                var idCheck = resultSet.getLong("id");
-                var urlId = resultSet.getLong("url_id");
-                var status = resultSet.getInt("status_code");
-                var title = resultSet.getString("title");
-                var h1 = resultSet.getString("h1");
-                var description = resultSet.getString("description");
-                var createdAt = resultSet.getTimestamp("created_at");
-                var urlCheck = new UrlCheck(status, title, h1, description, createdAt);
-                urlCheck.setUrlId(urlId);
-                urlCheck.setId(idCheck);
-                listChecks.put(urlId, urlCheck);
+                checks.add(toUrlCheck(resultSet));
             }
-            return listChecks;
+            return checks;
+        } finally {
+            GET_RECENT_CHECKS_TIME.recordSince(start);
+        }
+    }
+
+    public static List<CheckDay> getCheckDays(long urlId, int limit) throws SQLException {
+        String sql = "SELECT * FROM url_check_days WHERE url_id = ? ORDER BY check_date DESC LIMIT ?";
+        List<CheckDay> days = new ArrayList<>();
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, urlId);
+            pst.setInt(2, limit);
+            ResultSet resultSet = pst.executeQuery();
+            while (resultSet.next()) {
+                days.add(new CheckDay(resultSet.getLong("url_id"), resultSet.getDate("check_date"),
+                        resultSet.getInt("checks"), resultSet.getInt("status_2xx"), resultSet.getInt("status_3xx"),
+                        resultSet.getInt("status_4xx"), resultSet.getInt("status_5xx"),
+                        resultSet.getInt("title_changes")));
+            }
+            return days;
+        } finally {
+            GET_CHECK_DAYS_TIME.recordSince(start);
+        }
+    }
+
+    // the latest check of a url is skipped and rolled up by a later run, so days are added to;
+    // both statements read one snapshot, so a check that stops being the latest in between is left alone
+    public static int rollUpChecks(Timestamp cutoff, long afterUrlId, long lastUrlId) throws SQLException {
+        String old = "COALESCE(last_seen_at, created_at) < ? AND url_id > ? AND url_id <= ? "
+                + "AND id NOT IN (SELECT last_check_id FROM urls "
+                + "WHERE id > ? AND id <= ? AND last_check_id IS NOT NULL)";
+        String rollUp = "SELECT url_id, check_date, SUM(seen) AS checks, "
+                + "SUM(CASE WHEN status_code BETWEEN 200 AND 299 THEN seen ELSE 0 END) AS status_2xx, "
+                + "SUM(CASE WHEN status_code BETWEEN 300 AND 399 THEN seen ELSE 0 END) AS status_3xx, "
+                + "SUM(CASE WHEN status_code BETWEEN 400 AND 499 THEN seen ELSE 0 END) AS status_4xx, "
+                + "SUM(CASE WHEN status_code BETWEEN 500 AND 599 THEN seen ELSE 0 END) AS status_5xx, "
+                + "SUM(CASE WHEN title <> previous_title THEN 1 ELSE 0 END) AS title_changes "
+                + "FROM (SELECT url_id, CAST(created_at AS DATE) AS check_date, status_code, 1 + heartbeats AS seen, "
+                + "COALESCE(title, '') AS title, "
+                + "LAG(COALESCE(title, ''), 1, COALESCE(title, '')) OVER (PARTITION BY url_id ORDER BY id) "
+                + "AS previous_title "
+                + "FROM url_checks WHERE " + old + ") old_checks "
+                + "GROUP BY url_id, check_date";
+        String delete = "DELETE FROM url_checks WHERE " + old;
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (PreparedStatement rollUpPst = conn.prepareStatement(rollUp);
+                 PreparedStatement deletePst = conn.prepareStatement(delete)) {
+                for (PreparedStatement pst : List.of(rollUpPst, deletePst)) {
+                    pst.setTimestamp(1, cutoff);
+                    pst.setLong(2, afterUrlId);
+                    pst.setLong(3, lastUrlId);
+                    pst.setLong(4, afterUrlId);
+                    pst.setLong(5, lastUrlId);
+                }
+                List<CheckDay> days = new ArrayList<>();
+                ResultSet resultSet = rollUpPst.executeQuery();
+                while (resultSet.next()) {
+                    days.add(new CheckDay(resultSet.getLong("url_id"), resultSet.getDate("check_date"),
+                            resultSet.getInt("checks"), resultSet.getInt("status_2xx"), resultSet.getInt("status_3xx"),
+                            resultSet.getInt("status_4xx"), resultSet.getInt("status_5xx"),
+                            resultSet.getInt("title_changes")));
+                }
+                saveCheckDays(conn, days);
+                int deleted = deletePst.executeUpdate();
+                conn.commit();
+                if (deleted > 0) {
+                    dataChanged();
+                }
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            ROLL_UP_CHECKS_TIME.recordSince(start);
+        }
+    }
+
+    private static void saveCheckDays(Connection conn, List<CheckDay> days) throws SQLException {
+        if (days.isEmpty()) {
+            return;
+        }
+        String update = "UPDATE url_check_days SET checks = checks + ?, status_2xx = status_2xx + ?, "
+                + "status_3xx = status_3xx + ?, status_4xx = status_4xx + ?, status_5xx = status_5xx + ?, "
+                + "title_changes = title_changes + ? WHERE url_id = ? AND check_date = ?";
+        String insert = "INSERT INTO url_check_days (checks, status_2xx, status_3xx, status_4xx, status_5xx, "
+                + "title_changes, url_id, check_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement updatePst = conn.prepareStatement(update);
+             PreparedStatement insertPst = conn.prepareStatement(insert)) {
+            for (CheckDay day : days) {
+                setCheckDay(updatePst, day);
+                updatePst.addBatch();
+            }
+            int[] updated = updatePst.executeBatch();
+            boolean inserted = false;
+            for (int i = 0; i < days.size(); i++) {
+                if (updated[i] == 0) {
+                    setCheckDay(insertPst, days.get(i));
+                    insertPst.addBatch();
+                    inserted = true;
+                }
+            }
+            if (inserted) {
+                insertPst.executeBatch();
+            }
+        }
+    }
+
+    private static void setCheckDay(PreparedStatement pst, CheckDay day) throws SQLException {
+        pst.setInt(1, day.getChecks());
+        pst.setInt(2, day.getStatus2xx());
+        pst.setInt(3, day.getStatus3xx());
+        pst.setInt(4, day.getStatus4xx());
+        pst.setInt(5, day.getStatus5xx());
+        pst.setInt(6, day.getTitleChanges());
+        pst.setLong(7, day.getUrlId());
+        pst.setDate(8, day.getCheckDate());
+    }
+
+    public static List<UrlCheck> getChecksPage(long urlId, long afterId, int limit) throws SQLException {
+        String sql = "SELECT * FROM url_checks WHERE url_id = ? AND id > ? ORDER BY id LIMIT ?";
+        List<UrlCheck> checks = new ArrayList<>();
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, urlId);
+            pst.setLong(2, afterId);
+            pst.setInt(3, limit);
+            ResultSet resultSet = pst.executeQuery();
+            while (resultSet.next()) {
+                checks.add(toUrlCheck(resultSet));
+            }
+            return checks;
+        } finally {
+            GET_CHECKS_PAGE_TIME.recordSince(start);
         }
     }
 
-    private static final Map<String, UrlCheck> CASH = new HashMap<>();
+    @FunctionalInterface
+    public interface CheckConsumer {
+        void accept(UrlCheck urlCheck) throws IOException;
+    }
+
+    // PostgreSQL only honors the fetch size inside a transaction
+    public static void exportChecks(CheckConsumer consumer) throws SQLException, IOException {
+        String sql = "SELECT * FROM url_checks ORDER BY id";
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (PreparedStatement pst = conn.prepareStatement(sql)) {
+                pst.setFetchSize(EXPORT_FETCH_SIZE);
+                ResultSet resultSet = pst.executeQuery();
+                while (resultSet.next()) {
+                    consumer.accept(toUrlCheck(resultSet));
+                }
+            } finally {
+                conn.rollback();
+            }
+        } finally {
+            EXPORT_CHECKS_TIME.recordSince(start);
+        }
+    }
+
+    private static UrlCheck toUrlCheck(ResultSet resultSet) throws SQLException {
+        var status = resultSet.getInt("status_code");
+        var title = resultSet.getString("title");
+        var h1 = resultSet.getString("h1");
+        var description = resultSet.getString("description");
+        var createdAt = resultSet.getTimestamp("created_at");
+        var urlCheck = new UrlCheck(status, title, h1, description, createdAt);
+        urlCheck.setId(resultSet.getLong("id"));
+        urlCheck.setUrlId(resultSet.getLong("url_id"));
+        urlCheck.setEtag(resultSet.getString("etag"));
+        urlCheck.setLastModified(resultSet.getString("last_modified"));
+        urlCheck.setContentHash(resultSet.getString("content_hash"));
+        long simHash = resultSet.getLong("sim_hash");
+        urlCheck.setSimHash(resultSet.wasNull() ? null : simHash);
+        urlCheck.setLastSeenAt(resultSet.getTimestamp("last_seen_at"));
+        urlCheck.setExtras(resultSet.getString("extras"));
+        return urlCheck;
+    }
 
-    public static UrlCheck parsingURL(String urlModel) throws UnirestException {
+    public static UrlCheck parsingURL(String urlModel) throws IOException {
+        return parsingURL(urlModel, null);
+    }
+
+    public static UrlCheck parsingURL(String urlModel, UrlCheck previous) throws IOException {
+        try {
+            return parsingURLAsync(urlModel, previous).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public static CompletableFuture<UrlCheck> parsingURLAsync(String urlModel, UrlCheck previous) {
         Timestamp date = new Timestamp(System.currentTimeMillis());
-        if (CASH.containsKey(urlModel)) {
-            CASH.get(urlModel).setCreatedAt(date);
-            return CASH.get(urlModel);
-        }
-
-        HttpResponse<String> response = Unirest.get(urlModel).asString();
-        int statusCode = response.getCode();
-        Document document = Jsoup.parse(response.getBody());
-        Elements titleElement = document.select("head > title");
-        Elements h1Element = document.select("h1");
-        Elements descriptionMeta = document.select("meta[name=description]");
-        String title = titleElement.text();
-        String h1 = h1Element.text();
-        String description = descriptionMeta.attr("content");
-        var urlChecks = new UrlCheck(statusCode, title, h1, description, date);
-        CASH.put(urlModel, urlChecks);
-        return urlChecks;
+        var cached = checkCache.get(urlModel);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get().toUrlCheck(date));
+        }
+        Map<String, String> headers = new HashMap<>();
+        if (previous != null && previous.getEtag() != null) {
+            headers.put("If-None-Match", previous.getEtag());
+        }
+        if (previous != null && previous.getLastModified() != null) {
+            headers.put("If-Modified-Since", previous.getLastModified());
+        }
+        long start = System.nanoTime();
+        return pageFetcher.fetch(urlModel, headers)
+                .whenComplete((page, error) -> FETCH_TIME.recordSince(start))
+                .thenApply(page -> parsePage(urlModel, page, previous, date));
+    }
+
+    private static Histogram phaseTimer(String phase) {
+        return Metrics.histogram("check_phase_duration_seconds", "Time spent in a phase of a page check",
+                Metrics.labels("phase", phase));
+    }
+
+    private static LongAdder writeCounter(String kind) {
+        return Metrics.counter("check_writes_total", "Checks stored as a new row or as a heartbeat of the latest row",
+                Metrics.labels("kind", kind));
+    }
+
+    private static UrlCheck parsePage(String urlModel, FetchedPage page, UrlCheck previous, Timestamp date) {
+        var etag = page.getHeaders().firstValue("ETag").orElse(null);
+        var lastModified = page.getHeaders().firstValue("Last-Modified").orElse(null);
+        int statusClass = page.getStatusCode() / 100;
+        if (statusClass > 0 && statusClass < STATUS_CLASSES.length) {
+            STATUS_CLASSES[statusClass].increment();
+        }
+        long start = System.nanoTime();
+        CachedCheck check;
+        String bodyExtras;
+        var body = new TimedInputStream(page.getBody());
+        try (body) {
+            Map<String, Object> data;
+            if (page.getStatusCode() == 304 && previous != null) {
+                data = pageExtractor.revalidate(page, readExtras(previous.getExtras()));
+                check = new CachedCheck(previous.getStatusCode(), previous.getTitle(), previous.getH1(),
+                        previous.getDescription(), etag != null ? etag : previous.getEtag(),
+                        lastModified != null ? lastModified : previous.getLastModified(),
+                        previous.getContentHash(), previous.getSimHash(), writeExtras(data));
+            } else {
+                PageSummary summary = pageExtractor.extract(page.withBody(body));
+                data = summary.getData();
+                check = new CachedCheck(page.getStatusCode(), summary.getTitle(), summary.getH1(),
+                        summary.getDescription(), etag, lastModified, summary.getContentHash(), summary.getSimHash(),
+                        writeExtras(data));
+            }
+            bodyExtras = writeExtras(pageExtractor.withoutResponseData(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            BODY_TIME.recordNanos(body.getNanos());
+            PARSE_TIME.recordNanos(System.nanoTime() - start - body.getNanos());
+        }
+        // a cache hit is not a new response, so only the body fields are cached
+        if (check.getStatusCode() < 500) {
+            checkCache.put(urlModel, check.withExtras(bodyExtras), page.getHeaders());
+        }
+        return check.toUrlCheck(date);
+    }
+
+    private static Map<String, Object> readExtras(String extras) throws IOException {
+        return extras == null ? Map.of() : EXTRAS_MAPPER.readValue(extras, EXTRAS_TYPE);
+    }
+
+    private static String writeExtras(Map<String, Object> data) throws IOException {
+        return data.isEmpty() ? null : EXTRAS_MAPPER.writeValueAsString(data);
     }
 }
@@ -0,0 +1,120 @@
+package hexlet.code.repository;
+
+import hexlet.code.model.UrlCheck;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+public final class CheckWriter implements AutoCloseable {
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread worker;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock(true);
+    private volatile boolean closed;
+
+    public CheckWriter(int capacity, int batchSize, Duration flushInterval) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.worker = new Thread(this::run, "check-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public CompletableFuture<UrlCheck> write(UrlCheck urlCheck) throws InterruptedException {
+        var pending = new Pending(urlCheck, new CompletableFuture<>());
+        closeLock.readLock().lockInterruptibly();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Check writer is closed");
+            }
+            queue.put(pending);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return pending.result();
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                log.warn("Check writer was interrupted, flushing {} queued checks", batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending> batch) throws InterruptedException {
+        var first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long left = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || left <= 0 || closed) {
+                return;
+            }
+            var next = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<UrlCheck> urlChecks = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            urlChecks.add(pending.urlCheck());
+        }
+        try {
+            CheckRepository.saveCheckedUrls(urlChecks);
+            for (Pending pending : batch) {
+                pending.result().complete(pending.urlCheck());
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.error("Storing {} checks failed: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private record Pending(UrlCheck urlCheck, CompletableFuture<UrlCheck> result) {
+    }
+}
@@ -0,0 +1,137 @@
+package hexlet.code.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+public class Migrations {
+    private static final String LOCATION = "db/migration/";
+    private static final List<String> MIGRATIONS = List.of(
+            "V1__init.sql",
+            "V2__indexes.sql",
+            "V3__latest_checks.sql",
+            "V4__check_schedule.sql",
+            "V5__check_retention.sql",
+            "V6__check_fingerprints.sql",
+            "V7__check_extras.sql");
+    private static final long POSTGRES_LOCK_KEY = 72_0001L;
+
+    public static void migrate(DataSource dataSource) throws SQLException, IOException {
+        try (var conn = dataSource.getConnection()) {
+            boolean postgres = conn.getMetaData().getDatabaseProductName().equalsIgnoreCase("PostgreSQL");
+            if (postgres) {
+                lock(conn, "SELECT pg_advisory_lock(?)");
+            }
+            try {
+                createHistoryTable(conn);
+                var applied = getApplied(conn);
+                for (String file : MIGRATIONS) {
+                    migrate(conn, file, applied);
+                }
+            } finally {
+                if (postgres) {
+                    lock(conn, "SELECT pg_advisory_unlock(?)");
+                }
+            }
+        }
+    }
+
+    private static void migrate(Connection conn, String file, Map<Integer, String> applied)
+            throws SQLException, IOException {
+        int version = Integer.parseInt(file.substring(1, file.indexOf("__")));
+        String sql = readResource(LOCATION + file);
+        String checksum = checksum(sql);
+        var appliedChecksum = applied.get(version);
+        if (appliedChecksum != null) {
+            if (!appliedChecksum.equals(checksum)) {
+                throw new IllegalStateException("Migration " + file + " was changed after it had been applied");
+            }
+            return;
+        }
+        conn.setAutoCommit(false);
+        try (Statement statement = conn.createStatement();
+             PreparedStatement pst = conn.prepareStatement(
+                     "INSERT INTO schema_migrations (version, name, checksum, applied_at) VALUES (?, ?, ?, ?)")) {
+            statement.execute(sql);
+            pst.setInt(1, version);
+            pst.setString(2, file);
+            pst.setString(3, checksum);
+            pst.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            pst.executeUpdate();
+            conn.commit();
+            log.info("Applied migration {}", file);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void createHistoryTable(Connection conn) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS schema_migrations ("
+                + "version INTEGER NOT NULL, "
+                + "name VARCHAR(255) NOT NULL, "
+                + "checksum VARCHAR(64) NOT NULL, "
+                + "applied_at TIMESTAMP NOT NULL, "
+                + "CONSTRAINT pk_schema_migrations PRIMARY KEY (version))";
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static Map<Integer, String> getApplied(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = conn.createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM schema_migrations");
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt("version"), resultSet.getString("checksum"));
+            }
+        }
+        if (applied.size() > MIGRATIONS.size()) {
+            log.warn("Database has {} applied migrations, this build knows only {}", applied.size(), MIGRATIONS.size());
+        }
+        return applied;
+    }
+
+    private static void lock(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, POSTGRES_LOCK_KEY);
+            pst.execute();
+        }
+    }
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream inputStream = Migrations.class.getClassLoader().getResourceAsStream(name)) {
+            if (inputStream == null) {
+                throw new IOException("Migration " + name + " not found");
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String checksum(String sql) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sql.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package hexlet.code.repository;
+
+import hexlet.code.model.Url;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class UrlReadModel {
+    private static final long EMPTY = 0;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final int maxSize;
+    private final int shift;
+    private final int mask;
+    private final long[] ids;
+    private final Url[] urls;
+    private final boolean[] referenced;
+    private final Map<String, Url> byName;
+    private int size;
+    private int hand;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UrlReadModel(int maxSize) {
+        this.maxSize = Math.max(maxSize, 0);
+        int capacity = Integer.highestOneBit(Math.max(this.maxSize, 1) * 2 - 1) * 2;
+        this.shift = Long.numberOfLeadingZeros(capacity - 1);
+        this.mask = capacity - 1;
+        this.ids = new long[capacity];
+        this.urls = new Url[capacity];
+        this.referenced = new boolean[capacity];
+        this.byName = new HashMap<>();
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public Optional<Url> find(long id) {
+        Url url = null;
+        synchronized (this) {
+            int slot = slot(id);
+            if (slot >= 0) {
+                url = urls[slot];
+                referenced[slot] = true;
+            }
+        }
+        return result(url);
+    }
+
+    public Optional<Url> findByName(String name) {
+        Url url;
+        synchronized (this) {
+            url = byName.get(name);
+            if (url != null) {
+                referenced[slot(url.getId())] = true;
+            }
+        }
+        return result(url);
+    }
+
+    public void put(Url url) {
+        if (!isEnabled() || url.getId() == EMPTY) {
+            return;
+        }
+        var stored = copy(url);
+        synchronized (this) {
+            int slot = slot(url.getId());
+            if (slot >= 0) {
+                byName.remove(urls[slot].getName());
+                urls[slot] = stored;
+                referenced[slot] = true;
+                byName.put(stored.getName(), stored);
+                return;
+            }
+            if (size == maxSize) {
+                evict();
+            }
+            slot = home(url.getId());
+            while (ids[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = url.getId();
+            urls[slot] = stored;
+            referenced[slot] = false;
+            byName.put(stored.getName(), stored);
+            size++;
+        }
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(ids, EMPTY);
+        Arrays.fill(urls, null);
+        Arrays.fill(referenced, false);
+        byName.clear();
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Optional<Url> result(Url url) {
+        if (url == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copy(url));
+    }
+
+    private int home(long id) {
+        return (int) ((id * GOLDEN_RATIO) >>> shift);
+    }
+
+    private int slot(long id) {
+        int slot = home(id);
+        while (ids[slot] != EMPTY) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void evict() {
+        while (ids[hand] == EMPTY || referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) & mask;
+        }
+        byName.remove(urls[hand].getName());
+        remove(hand);
+        evictions.increment();
+    }
+
+    // backward shift deletion keeps every probe sequence unbroken without tombstones
+    private void remove(int slot) {
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long id = ids[next];
+            if (id == EMPTY) {
+                break;
+            }
+            if (((next - home(id)) & mask) >= ((next - gap) & mask)) {
+                ids[gap] = id;
+                urls[gap] = urls[next];
+                referenced[gap] = referenced[next];
+                gap = next;
+            }
+        }
+        ids[gap] = EMPTY;
+        urls[gap] = null;
+        referenced[gap] = false;
+        size--;
+    }
+
+    private static Url copy(Url url) {
+        var copy = new Url(url.getName(), url.getCreatedAt());
+        copy.setId(url.getId());
+        return copy;
+    }
+}
@@ -1,6 +1,10 @@
 package hexlet.code.repository;
 
+import hexlet.code.metrics.Histogram;
 import hexlet.code.model.Url;
+import hexlet.code.model.UrlCheck;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -9,28 +13,159 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class UrlRepository extends BaseRepository {
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final int SAVE_ALL_ATTEMPTS = 3;
+    private static final Histogram SAVE_TIME = timer("UrlRepository.save");
+    private static final Histogram FIND_TIME = timer("UrlRepository.find");
+    private static final Histogram FIND_BY_NAME_TIME = timer("UrlRepository.findByName");
+    private static final Histogram GET_ENTITIES_TIME = timer("UrlRepository.getEntities");
+    private static final Histogram GET_PAGE_TIME = timer("UrlRepository.getPage");
+    private static final Histogram CLAIM_DUE_URLS_TIME = timer("UrlRepository.claimDueUrls");
+    private static final Histogram RESCHEDULE_TIME = timer("UrlRepository.reschedule");
+    private static final Histogram GET_IDS_TIME = timer("UrlRepository.getIds");
+    private static final Histogram COUNT_TIME = timer("UrlRepository.count");
+    private static final Histogram SAVE_ALL_TIME = timer("UrlRepository.saveAllIfAbsent");
+
+    @Getter
+    @Setter
+    private static UrlReadModel readModel = new UrlReadModel(0);
+
     public static void save(Url url) throws SQLException {
-        String sql = "INSERT INTO urls (name, created_at) VALUES (?, ?)";
+        String sql = "INSERT INTO urls (name, created_at, next_check_at) VALUES (?, ?, ?)";
+        long start = System.nanoTime();
         try (Connection connection = dataSource.getConnection();
              PreparedStatement pst = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pst.setString(1, url.getName());
             pst.setTimestamp(2, url.getCreatedAt());
+            pst.setTimestamp(3, url.getCreatedAt());
             pst.executeUpdate();
             ResultSet generatedKeys = pst.getGeneratedKeys();
             if (generatedKeys.next()) {
                 url.setId(generatedKeys.getLong(1));
+                readModel.put(url);
+                dataChanged();
             } else {
                 throw new SQLException("DB don't have return an id after saving entity");
             }
+        } finally {
+            SAVE_TIME.recordSince(start);
+        }
+    }
+
+    public static boolean saveIfAbsent(Url url) throws SQLException {
+        if (readModel.findByName(url.getName()).isPresent()) {
+            return false;
+        }
+        try {
+            save(url);
+            return true;
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // a name inserted concurrently fails the batch, which is retried with a fresh lookup
+    public static List<Url> saveAllIfAbsent(Collection<String> names, Timestamp createdAt) throws SQLException {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        try {
+            int attempt = 1;
+            while (true) {
+                try {
+                    return insertAbsent(names, createdAt);
+                } catch (SQLException e) {
+                    if (!isUniqueViolation(e) || attempt == SAVE_ALL_ATTEMPTS) {
+                        throw e;
+                    }
+                    attempt++;
+                }
+            }
+        } finally {
+            SAVE_ALL_TIME.recordSince(start);
+        }
+    }
+
+    private static List<Url> insertAbsent(Collection<String> names, Timestamp createdAt) throws SQLException {
+        String select = "SELECT name FROM urls WHERE name IN ("
+                + String.join(", ", Collections.nCopies(names.size(), "?")) + ")";
+        String insert = "INSERT INTO urls (name, created_at, next_check_at) VALUES (?, ?, ?)";
+        List<Url> urls = new ArrayList<>();
+        try (var conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectPst = conn.prepareStatement(select);
+                 PreparedStatement insertPst = conn.prepareStatement(insert, new String[] {"id"})) {
+                int index = 1;
+                for (String name : names) {
+                    selectPst.setString(index, name);
+                    index++;
+                }
+                Set<String> existing = new HashSet<>();
+                ResultSet resultSet = selectPst.executeQuery();
+                while (resultSet.next()) {
+                    existing.add(resultSet.getString("name"));
+                }
+                for (String name : names) {
+                    if (!existing.contains(name)) {
+                        urls.add(new Url(name, createdAt));
+                        insertPst.setString(1, name);
+                        insertPst.setTimestamp(2, createdAt);
+                        insertPst.setTimestamp(3, createdAt);
+                        insertPst.addBatch();
+                    }
+                }
+                if (!urls.isEmpty()) {
+                    insertPst.executeBatch();
+                    ResultSet generatedKeys = insertPst.getGeneratedKeys();
+                    for (Url url : urls) {
+                        if (generatedKeys.next()) {
+                            url.setId(generatedKeys.getLong(1));
+                        } else {
+                            throw new SQLException("DB have not returned an id after saving an entity");
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         }
+        if (!urls.isEmpty()) {
+            urls.forEach(readModel::put);
+            dataChanged();
+        }
+        return urls;
+    }
+
+    private static boolean isUniqueViolation(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(cause.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static Optional<Url> find(long id) throws SQLException {
+        var cached = readModel.find(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
         String sql = "SELECT * FROM urls WHERE id = ?";
+        long start = System.nanoTime();
         try (var conn = dataSource.getConnection();
              PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setLong(1, id);
@@ -40,14 +175,22 @@ public class UrlRepository extends BaseRepository {
                 Timestamp date = resultSet.getTimestamp("created_at");
                 Url url = new Url(name, date);
                 url.setId(id);
+                readModel.put(url);
                 return Optional.of(url);
             }
+        } finally {
+            FIND_TIME.recordSince(start);
         }
         return Optional.empty();
     }
 
     public static Optional<Url> findByName(String urlName) throws SQLException {
+        var cached = readModel.findByName(urlName);
+        if (cached.isPresent()) {
+            return cached;
+        }
         String sql = "SELECT * FROM urls WHERE name = ?";
+        long start = System.nanoTime();
         try (var conn = dataSource.getConnection();
              PreparedStatement pst = conn.prepareStatement(sql)) {
             pst.setString(1, urlName);
@@ -58,8 +201,11 @@ public class UrlRepository extends BaseRepository {
                 Timestamp date = resultSet.getTimestamp("created_at");
                 Url url = new Url(name, date);
                 url.setId(id);
+                readModel.put(url);
                 return Optional.of(url);
             }
+        } finally {
+            FIND_BY_NAME_TIME.recordSince(start);
         }
         return Optional.empty();
     }
@@ -67,6 +213,7 @@ public class UrlRepository extends BaseRepository {
     public static List<Url> getEntities() throws SQLException {
         String sql = "SELECT * FROM urls ORDER BY id";
         List<Url> urls = new ArrayList<>();
+        long start = System.nanoTime();
         try (var conn = dataSource.getConnection();
              Statement statement = conn.createStatement()) {
             ResultSet resultSet = statement.executeQuery(sql);
@@ -78,7 +225,123 @@ public class UrlRepository extends BaseRepository {
                 url.setId(id);
                 urls.add(url);
             }
+        } finally {
+            GET_ENTITIES_TIME.recordSince(start);
         }
         return urls;
     }
+
+    public static List<Url> getPage(long afterId, int limit) throws SQLException {
+        String sql = "SELECT id, name, created_at, last_check_id, last_status_code, last_checked_at "
+                + "FROM urls WHERE id > ? ORDER BY id LIMIT ?";
+        List<Url> urls = new ArrayList<>();
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, afterId);
+            pst.setInt(2, limit);
+            ResultSet resultSet = pst.executeQuery();
+            while (resultSet.next()) {
+                long id = resultSet.getLong("id");
+                String name = resultSet.getString("name");
+                Timestamp createdAt = resultSet.getTimestamp("created_at");
+                Url url = new Url(name, createdAt);
+                url.setId(id);
+                long checkId = resultSet.getLong("last_check_id");
+                if (!resultSet.wasNull()) {
+                    var check = new UrlCheck(resultSet.getInt("last_status_code"), null, null, null,
+                            resultSet.getTimestamp("last_checked_at"));
+                    check.setId(checkId);
+                    check.setUrlId(id);
+                    url.setLastCheck(check);
+                }
+                urls.add(url);
+            }
+        } finally {
+            GET_PAGE_TIME.recordSince(start);
+        }
+        return urls;
+    }
+
+    public static List<Url> claimDueUrls(int limit, Timestamp now, Timestamp leaseUntil) throws SQLException {
+        String select = "SELECT id, name, created_at, check_failures FROM urls WHERE next_check_at <= ? "
+                + "ORDER BY next_check_at LIMIT ? FOR UPDATE SKIP LOCKED";
+        String lease = "UPDATE urls SET next_check_at = ? WHERE id = ?";
+        List<Url> urls = new ArrayList<>();
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectPst = conn.prepareStatement(select);
+                 PreparedStatement leasePst = conn.prepareStatement(lease)) {
+                selectPst.setTimestamp(1, now);
+                selectPst.setInt(2, limit);
+                ResultSet resultSet = selectPst.executeQuery();
+                while (resultSet.next()) {
+                    Url url = new Url(resultSet.getString("name"), resultSet.getTimestamp("created_at"));
+                    url.setId(resultSet.getLong("id"));
+                    url.setCheckFailures(resultSet.getInt("check_failures"));
+                    urls.add(url);
+                    leasePst.setTimestamp(1, leaseUntil);
+                    leasePst.setLong(2, url.getId());
+                    leasePst.addBatch();
+                }
+                if (!urls.isEmpty()) {
+                    leasePst.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            CLAIM_DUE_URLS_TIME.recordSince(start);
+        }
+        return urls;
+    }
+
+    public static void reschedule(long id, Timestamp nextCheckAt, boolean failed) throws SQLException {
+        String sql = failed
+                ? "UPDATE urls SET next_check_at = ?, check_failures = check_failures + 1 WHERE id = ?"
+                : "UPDATE urls SET next_check_at = ?, check_failures = 0 WHERE id = ?";
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setTimestamp(1, nextCheckAt);
+            pst.setLong(2, id);
+            pst.executeUpdate();
+        } finally {
+            RESCHEDULE_TIME.recordSince(start);
+        }
+    }
+
+    public static List<Long> getIds(long afterId, int limit) throws SQLException {
+        String sql = "SELECT id FROM urls WHERE id > ? ORDER BY id LIMIT ?";
+        List<Long> ids = new ArrayList<>();
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setLong(1, afterId);
+            pst.setInt(2, limit);
+            ResultSet resultSet = pst.executeQuery();
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong("id"));
+            }
+        } finally {
+            GET_IDS_TIME.recordSince(start);
+        }
+        return ids;
+    }
+
+    public static int count() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM urls";
+        long start = System.nanoTime();
+        try (var conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            ResultSet resultSet = statement.executeQuery(sql);
+            resultSet.next();
+            return resultSet.getInt(1);
+        } finally {
+            COUNT_TIME.recordSince(start);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package hexlet.code.util;
+
+import io.javalin.http.Context;
+import io.javalin.http.HandlerType;
+import io.javalin.http.Header;
+import io.javalin.http.ServiceUnavailableResponse;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+public final class AdmissionController {
+    private static final String PERMIT = "admission-permit";
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final String CHECK_PATH = NamedRoutes.urlCheckPath("{id}");
+    private static final Set<String> EXEMPT_PATHS = Set.of(NamedRoutes.metricsPath(), NamedRoutes.poolStatusPath(),
+            NamedRoutes.hostsStatusPath());
+
+    private final int routeLimit;
+    private final int maxAwaitingConnections;
+    private final IntSupplier awaitingConnections;
+    private final BooleanSupplier checkerSaturated;
+    private final Map<String, Semaphore> routes = new ConcurrentHashMap<>();
+
+    public AdmissionController(int routeLimit, int maxAwaitingConnections, IntSupplier awaitingConnections,
+                               BooleanSupplier checkerSaturated) {
+        this.routeLimit = routeLimit;
+        this.maxAwaitingConnections = maxAwaitingConnections;
+        this.awaitingConnections = awaitingConnections;
+        this.checkerSaturated = checkerSaturated;
+    }
+
+    public void before(Context ctx) {
+        String path = ctx.endpointHandlerPath();
+        if (isExempt(path)) {
+            return;
+        }
+        String route = ctx.method() + " " + path;
+        String rejection = admit(route, startsCheck(ctx.method(), path));
+        if (rejection != null) {
+            ctx.header(Header.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            throw new ServiceUnavailableResponse(rejection);
+        }
+        ctx.attribute(PERMIT, route);
+    }
+
+    public void after(Context ctx) {
+        String route = ctx.attribute(PERMIT);
+        if (route != null) {
+            release(route);
+        }
+    }
+
+    // a static file matches no endpoint, so its handler path is empty
+    static boolean isExempt(String path) {
+        return path.isEmpty() || EXEMPT_PATHS.contains(path);
+    }
+
+    static boolean startsCheck(HandlerType method, String path) {
+        return method == HandlerType.POST && path.equals(CHECK_PATH);
+    }
+
+    String admit(String route, boolean startsCheck) {
+        if (awaitingConnections.getAsInt() > maxAwaitingConnections) {
+            return "Database is overloaded";
+        }
+        if (startsCheck && checkerSaturated.getAsBoolean()) {
+            return "Check queue is full";
+        }
+        if (!routes.computeIfAbsent(route, key -> new Semaphore(routeLimit)).tryAcquire()) {
+            return "Too many requests in flight";
+        }
+        return null;
+    }
+
+    void release(String route) {
+        routes.get(route).release();
+    }
+
+    public int getInFlight(String route) {
+        var permits = routes.get(route);
+        return permits == null ? 0 : routeLimit - permits.availablePermits();
+    }
+}
@@ -0,0 +1,12 @@
+package hexlet.code.util;
+
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+public class Dates {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    public static String format(Timestamp timestamp) {
+        return DATE_TIME.format(timestamp.toLocalDateTime());
+    }
+}
@@ -9,6 +9,18 @@ public class NamedRoutes {
         return "/urls";
     }
 
+    public static String listUrlsPath(long after, int limit) {
+        return "/urls?after=" + after + "&limit=" + limit;
+    }
+
+    public static String importUrlsPath() {
+        return "/urls/import";
+    }
+
+    public static String urlsChecksPath() {
+        return "/urls/checks";
+    }
+
     public static String urlPath(Long id) {
         return urlPath(String.valueOf(id));
     }
@@ -24,4 +36,40 @@ public class NamedRoutes {
     public static String urlCheckPath(String id) {
         return "/urls/" + id + "/checks";
     }
+
+    public static String checkJobPath(String id) {
+        return "/checks/jobs/" + id;
+    }
+
+    public static String hostsStatusPath() {
+        return "/status/hosts";
+    }
+
+    public static String poolStatusPath() {
+        return "/status/pool";
+    }
+
+    public static String metricsPath() {
+        return "/metrics";
+    }
+
+    public static String apiUrlsPath() {
+        return "/api/urls";
+    }
+
+    public static String apiUrlsPath(long after, int limit) {
+        return "/api/urls?after=" + after + "&limit=" + limit;
+    }
+
+    public static String apiUrlChecksPath(String id) {
+        return "/api/urls/" + id + "/checks";
+    }
+
+    public static String apiUrlChecksPath(long id, long after, int limit) {
+        return "/api/urls/" + id + "/checks?after=" + after + "&limit=" + limit;
+    }
+
+    public static String apiChecksExportPath() {
+        return "/api/checks/export";
+    }
 }
@@ -0,0 +1,61 @@
+package hexlet.code.util;
+
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+public final class PageCache {
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public record Entry(long version, long createdAt, byte[] body, String etag) {
+    }
+
+    public PageCache(int maxSize, Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public Entry get(String key, long version) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null && entry.version() == version
+                    && System.currentTimeMillis() - entry.createdAt() < ttlMillis) {
+                return entry;
+            }
+            return null;
+        }
+    }
+
+    public Entry put(String key, long version, byte[] body) {
+        var crc = new CRC32C();
+        crc.update(body);
+        String etag = "W/\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+        var entry = new Entry(version, System.currentTimeMillis(), body, etag);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public void send(Context ctx, Entry entry) {
+        ctx.header(Header.ETAG, entry.etag());
+        ctx.header(Header.CACHE_CONTROL, "no-cache");
+        String ifNoneMatch = ctx.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(entry.etag()) || ifNoneMatch.trim().equals("*"))) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+        ctx.result(entry.body());
+    }
+}
@@ -0,0 +1,29 @@
+package hexlet.code.util;
+
+import gg.jte.TemplateEngine;
+import gg.jte.output.Utf8ByteOutput;
+import io.javalin.http.Context;
+import lombok.Setter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+public class Templates {
+    @Setter
+    private static TemplateEngine templateEngine;
+
+    public static void render(Context ctx, String template, Map<String, Object> model) throws IOException {
+        var output = new Utf8ByteOutput();
+        templateEngine.render(template, model, output);
+        output.writeTo(ctx.outputStream());
+    }
+
+    public static byte[] renderBytes(String template, Map<String, Object> model) throws IOException {
+        var output = new Utf8ByteOutput();
+        templateEngine.render(template, model, output);
+        var bytes = new ByteArrayOutputStream(output.getContentLength());
+        output.writeTo(bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,20 @@
+package hexlet.code.util;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+
+public class UrlNormalizer {
+    public static String normalize(String input) throws MalformedURLException {
+        URL url;
+        try {
+            url = URI.create(input.trim()).toURL();
+        } catch (IllegalArgumentException e) {
+            throw new MalformedURLException(e.getMessage());
+        }
+        if (url.getAuthority() == null || url.getAuthority().isEmpty()) {
+            throw new MalformedURLException("No host in " + input);
+        }
+        return url.getProtocol() + "://" + url.getAuthority();
+    }
+}
@@ -0,0 +1,8 @@
+UPDATE url_checks SET url_id = (
+  SELECT MIN(d.id) FROM urls d WHERE d.name = (SELECT u.name FROM urls u WHERE u.id = url_checks.url_id)
+)
+WHERE url_id IN (SELECT u.id FROM urls u WHERE EXISTS (SELECT 1 FROM urls d WHERE d.name = u.name AND d.id < u.id));
+DELETE FROM urls WHERE EXISTS (SELECT 1 FROM urls d WHERE d.name = urls.name AND d.id < urls.id);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_urls_name ON urls (name);
+CREATE INDEX IF NOT EXISTS ix_url_checks_url_id_id ON url_checks (url_id, id DESC);
+DROP INDEX IF EXISTS ix_url_check_url_id;
@@ -0,0 +1,11 @@
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS last_check_id BIGINT;
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS last_status_code INTEGER;
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS last_checked_at TIMESTAMP;
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS etag VARCHAR(255);
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS last_modified VARCHAR(255);
+UPDATE urls SET last_check_id = (SELECT MAX(c.id) FROM url_checks c WHERE c.url_id = urls.id)
+WHERE last_check_id IS NULL;
+UPDATE urls SET
+  last_status_code = (SELECT c.status_code FROM url_checks c WHERE c.id = urls.last_check_id),
+  last_checked_at = (SELECT c.created_at FROM url_checks c WHERE c.id = urls.last_check_id)
+WHERE last_check_id IS NOT NULL AND last_checked_at IS NULL;
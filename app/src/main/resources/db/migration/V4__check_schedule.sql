@@ -0,0 +1,3 @@
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS next_check_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL;
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS check_failures INTEGER DEFAULT 0 NOT NULL;
+CREATE INDEX IF NOT EXISTS ix_urls_next_check_at ON urls (next_check_at);
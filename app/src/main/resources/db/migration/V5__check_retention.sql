@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS url_check_days (
+  url_id                        BIGINT NOT NULL,
+  check_date                    DATE NOT NULL,
+  checks                        INTEGER NOT NULL,
+  status_2xx                    INTEGER NOT NULL,
+  status_3xx                    INTEGER NOT NULL,
+  status_4xx                    INTEGER NOT NULL,
+  status_5xx                    INTEGER NOT NULL,
+  title_changes                 INTEGER NOT NULL,
+  CONSTRAINT pk_url_check_days PRIMARY KEY (url_id, check_date),
+  CONSTRAINT fk_url_check_days_url_id FOREIGN KEY (url_id) REFERENCES urls (id) ON DELETE RESTRICT ON UPDATE RESTRICT
+);
+CREATE INDEX IF NOT EXISTS ix_url_checks_created_at ON url_checks (created_at);
@@ -0,0 +1,4 @@
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS sim_hash BIGINT;
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP;
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS heartbeats INTEGER DEFAULT 0 NOT NULL;
@@ -0,0 +1 @@
+ALTER TABLE url_checks ADD COLUMN IF NOT EXISTS extras TEXT;
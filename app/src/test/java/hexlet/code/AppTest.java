@@ -1,9 +1,18 @@
 package hexlet.code;
 
-import com.mashape.unirest.http.exceptions.UnirestException;
+import hexlet.code.check.CheckEngine;
+import hexlet.code.check.CheckProgress;
+import hexlet.code.check.CheckScheduler;
+import hexlet.code.check.HttpPageFetcher;
+import hexlet.code.check.PageExtractor;
+import hexlet.code.check.RetentionTask;
+import hexlet.code.controllers.ApiController;
 import hexlet.code.model.Url;
 import hexlet.code.model.UrlCheck;
+import hexlet.code.repository.BaseRepository;
 import hexlet.code.repository.CheckRepository;
+import hexlet.code.repository.CheckWriter;
+import hexlet.code.repository.UrlReadModel;
 import hexlet.code.repository.UrlRepository;
 import hexlet.code.util.NamedRoutes;
 import io.javalin.Javalin;
@@ -22,7 +31,11 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -36,8 +49,14 @@ public class AppTest {
     }
 
     @BeforeEach
-    public final void setUp() throws IOException {
+    public final void setUp() throws IOException, SQLException {
         app = App.getApp();
+        try (var conn = BaseRepository.getDataSource().getConnection();
+             var statement = conn.createStatement()) {
+            statement.execute("DELETE FROM url_checks");
+            statement.execute("DELETE FROM url_check_days");
+            statement.execute("DELETE FROM urls");
+        }
     }
 
     @BeforeAll
@@ -72,6 +91,24 @@ public class AppTest {
         }));
     }
 
+    @Test
+    public void testImportUrls() throws SQLException {
+        UrlRepository.save(new Url("https://existing.example.com", new Timestamp(System.currentTimeMillis())));
+        var upload = "url\nhttps://a.example.com/path?q=1\na.example.com\n\"b.example.com\",B\n"
+                + "not a url\n\nhttps://existing.example.com\n";
+
+        JavalinTest.test(app, (server, client) -> {
+            var response = client.post(NamedRoutes.importUrlsPath(), upload,
+                    request -> request.header("Accept", "application/json"));
+            assertThat(response.code()).isEqualTo(200);
+            assertThat(response.body().string()).isEqualTo("{\"accepted\":2,\"duplicates\":2,\"invalid\":1}");
+        });
+
+        assertThat(UrlRepository.findByName("https://a.example.com").isPresent()).isTrue();
+        assertThat(UrlRepository.findByName("https://b.example.com").isPresent()).isTrue();
+        assertThat(UrlRepository.getEntities()).hasSize(3);
+    }
+
     @Test
     public void testShowListUrl() {
         JavalinTest.test(app, ((server, client) -> {
@@ -98,6 +135,107 @@ public class AppTest {
         }));
     }
 
+    @Test
+    public void testListUrlPagination() throws SQLException {
+        Timestamp date = new Timestamp(System.currentTimeMillis());
+        var url1 = new Url("https://one.com", date);
+        var url2 = new Url("https://two.com", date);
+        var url3 = new Url("https://three.com", date);
+        UrlRepository.save(url1);
+        UrlRepository.save(url2);
+        UrlRepository.save(url3);
+
+        JavalinTest.test(app, ((server, client) -> {
+            var firstPage = client.get(NamedRoutes.listUrlsPath(0, 2)).body().string();
+            assertThat(firstPage).contains("https://one.com", "https://two.com");
+            assertThat(firstPage).doesNotContain("https://three.com");
+            assertThat(firstPage).contains("after=" + url2.getId());
+
+            var secondPage = client.get(NamedRoutes.listUrlsPath(url2.getId(), 2)).body().string();
+            assertThat(secondPage).contains("https://three.com");
+            assertThat(secondPage).doesNotContain("https://one.com");
+        }));
+    }
+
+    @Test
+    public void testLatestCheckProjection() throws SQLException {
+        Timestamp date = new Timestamp(System.currentTimeMillis());
+        var url = new Url("https://latest.com", date);
+        UrlRepository.save(url);
+        var first = new UrlCheck(200, "first", "", "", date);
+        first.setUrlId(url.getId());
+        var second = new UrlCheck(404, "second", "", "", date);
+        second.setUrlId(url.getId());
+        CheckRepository.saveCheckedUrl(first);
+        CheckRepository.saveCheckedUrl(second);
+
+        var late = new UrlCheck(500, "late", "", "", new Timestamp(date.getTime() - 1000));
+        late.setUrlId(url.getId());
+        CheckRepository.saveCheckedUrl(late);
+
+        var lastCheck = UrlRepository.getPage(url.getId() - 1, 1).get(0).getLastCheck();
+        assertThat(lastCheck.getId()).isEqualTo(second.getId());
+        assertThat(lastCheck.getStatusCode()).isEqualTo(404);
+        assertThat(CheckRepository.findLastCheck(url.getId()).get().getTitle()).isEqualTo("second");
+    }
+
+    @Test
+    public void testCheckWriterStoresBatches() throws SQLException, InterruptedException {
+        Timestamp date = new Timestamp(System.currentTimeMillis());
+        var url = new Url("https://batch.com", date);
+        UrlRepository.save(url);
+
+        List<UrlCheck> stored = new ArrayList<>();
+        try (var writer = new CheckWriter(10, 10, Duration.ofMillis(50))) {
+            var futures = new ArrayList<CompletableFuture<UrlCheck>>();
+            for (int i = 0; i < 3; i++) {
+                var check = new UrlCheck(200, "title " + i, "", "", date);
+                check.setUrlId(url.getId());
+                futures.add(writer.write(check));
+            }
+            futures.forEach(future -> stored.add(future.join()));
+        }
+
+        assertThat(stored).allMatch(check -> check.getId() > 0);
+        assertThat(CheckRepository.getListCheck(url.getId())).hasSize(3);
+        assertThat(UrlRepository.getPage(url.getId() - 1, 1).get(0).getLastCheck().getId())
+                .isEqualTo(stored.get(2).getId());
+    }
+
+    @Test
+    public void testSaveIfAbsent() throws SQLException {
+        Timestamp date = new Timestamp(System.currentTimeMillis());
+        var url = new Url("https://unique.com", date);
+        var duplicate = new Url("https://unique.com", date);
+
+        assertThat(UrlRepository.saveIfAbsent(url)).isTrue();
+        assertThat(UrlRepository.saveIfAbsent(duplicate)).isFalse();
+        assertThat(UrlRepository.findByName("https://unique.com").get().getId()).isEqualTo(url.getId());
+    }
+
+    @Test
+    public void testSchedulerChecksDueUrls() throws IOException, SQLException {
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            server.start();
+            var url = new Url(server.url("/").toString(), new Timestamp(System.currentTimeMillis() - 1000));
+            UrlRepository.save(url);
+
+            try (var writer = new CheckWriter(10, 10, Duration.ofMillis(10))) {
+                var engine = new CheckEngine(4, 1, writer);
+                var scheduler = new CheckScheduler(engine, Duration.ofHours(1), Duration.ofMinutes(1), 0.1, 10,
+                        Duration.ofSeconds(30), Duration.ofSeconds(10));
+                assertThat(scheduler.runOnce()).isEqualTo(1);
+                assertThat(scheduler.runOnce()).isZero();
+            }
+
+            assertThat(CheckRepository.getListCheck(url.getId())).hasSize(1);
+            long now = System.currentTimeMillis();
+            var notDue = UrlRepository.claimDueUrls(10, new Timestamp(now + 1000), new Timestamp(now));
+            assertThat(notDue).isEmpty();
+        }
+    }
+
     @Test
     public void testShowUrl() throws SQLException {
         Timestamp date = new Timestamp(System.currentTimeMillis());
@@ -157,7 +295,7 @@ public class AppTest {
     }
 
     @Test
-    public void testSaveUrlCheck() throws UnirestException, SQLException {
+    public void testSaveUrlCheck() throws IOException, SQLException {
         Timestamp date = new Timestamp(System.currentTimeMillis());
         var urlModel = new Url("https://hexlet.io", date);
         UrlRepository.save(urlModel);
@@ -172,7 +310,7 @@ public class AppTest {
     }
 
     @Test
-    public void testShowUrlCheck() throws SQLException, UnirestException {
+    public void testShowUrlCheck() throws SQLException, IOException {
         Timestamp date = new Timestamp(System.currentTimeMillis());
         var urlModel = new Url("https://hexlet.io", date);
         UrlRepository.save(urlModel);
@@ -188,6 +326,395 @@ public class AppTest {
         }));
     }
 
+    @Test
+    public void testCheckAllUrls() throws IOException, SQLException {
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            server.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            server.start();
+
+            Timestamp date = new Timestamp(System.currentTimeMillis());
+            var url1 = new Url("http://localhost:" + server.getPort(), date);
+            var url2 = new Url("http://127.0.0.1:" + server.getPort(), date);
+            UrlRepository.save(url1);
+            UrlRepository.save(url2);
+
+            CheckProgress progress;
+            try (var writer = new CheckWriter(10, 10, Duration.ofMillis(10))) {
+                progress = new CheckEngine(4, 1, writer).checkAll(List.of(url1, url2));
+            }
+
+            assertThat(progress.isDone()).isTrue();
+            assertThat(progress.getSucceeded()).isEqualTo(2);
+            assertThat(CheckRepository.getListCheck(url1.getId()).get(0).getTitle()).isEqualTo("Test page");
+            assertThat(CheckRepository.getListCheck(url2.getId()).get(0).getTitle()).isEqualTo("Test page");
+        }
+    }
+
+    @Test
+    public void testStartAllChecksUrlsInChunks() throws IOException, SQLException, InterruptedException {
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            server.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            server.start();
+
+            Timestamp date = new Timestamp(System.currentTimeMillis());
+            var url1 = new Url("http://localhost:" + server.getPort(), date);
+            var url2 = new Url("http://127.0.0.1:" + server.getPort(), date);
+            UrlRepository.save(url1);
+            UrlRepository.save(url2);
+
+            CheckProgress progress;
+            try (var writer = new CheckWriter(10, 10, Duration.ofMillis(10))) {
+                progress = new CheckEngine(4, 1, writer).startAll(1);
+                for (int attempt = 0; attempt < 50 && !progress.isDone(); attempt++) {
+                    Thread.sleep(100);
+                }
+            }
+
+            assertThat(progress.getTotal()).isEqualTo(2);
+            assertThat(progress.getSucceeded()).isEqualTo(2);
+            assertThat(CheckRepository.getListCheck(url2.getId()).get(0).getTitle()).isEqualTo("Test page");
+        }
+    }
+
+    @Test
+    public void testCheckAllUrlsEndpoint() {
+        JavalinTest.test(app, (server, client) -> {
+            var response = client.post(NamedRoutes.urlsChecksPath());
+            assertThat(response.code()).isEqualTo(200);
+            assertThat(response.body().string()).contains("Проверка всех сайтов запущена");
+        });
+    }
+
+    @Test
+    public void testFetcherFollowsRedirects() throws IOException {
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/moved"));
+            server.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            server.start();
+
+            var fetcher = new HttpPageFetcher(Duration.ofSeconds(1), Duration.ofSeconds(5), 1);
+            var page = fetcher.fetch(server.url("/").toString()).join();
+
+            assertThat(page.getStatusCode()).isEqualTo(200);
+            assertThat(page.getUri().getPath()).isEqualTo("/moved");
+            assertThat(page.getBody()).contains("Test page");
+        }
+    }
+
+    @Test
+    public void testConditionalRecheck() throws IOException, InterruptedException {
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse()
+                    .setBody(readFixture("index.html"))
+                    .setHeader("ETag", "\"v1\"")
+                    .setHeader("Cache-Control", "no-cache"));
+            server.enqueue(new MockResponse().setResponseCode(304));
+            server.start();
+            var url = server.url("/").toString();
+
+            var first = CheckRepository.parsingURL(url);
+            var second = CheckRepository.parsingURL(url, first);
+            server.takeRequest();
+            var conditional = server.takeRequest();
+
+            assertThat(conditional.getHeader("If-None-Match")).isEqualTo("\"v1\"");
+            assertThat(second.getStatusCode()).isEqualTo(200);
+            assertThat(second.getTitle()).isEqualTo("Test page");
+            assertThat(second.getEtag()).isEqualTo("\"v1\"");
+            assertThat(second.getExtras()).contains("\"responseTimeMs\":");
+        }
+    }
+
+    @Test
+    public void testStoreOnlyOnChange() throws IOException, SQLException {
+        CheckRepository.setStoreOnChange(true);
+        CheckRepository.setPageExtractor(new PageExtractor(AppConfig.getCheckMaxBytes(), true, List.of()));
+        var body = readFixture("index.html");
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setBody(body).setHeader("Cache-Control", "no-cache"));
+            server.enqueue(new MockResponse().setBody(body).setHeader("Cache-Control", "no-cache"));
+            server.enqueue(new MockResponse()
+                    .setBody(body.replace("</body>", "<p>The page now has a new paragraph</p></body>"))
+                    .setHeader("Cache-Control", "no-cache"));
+            server.start();
+            var url = new Url(server.url("/").toString(), new Timestamp(System.currentTimeMillis()));
+            UrlRepository.save(url);
+
+            for (int i = 0; i < 3; i++) {
+                var check = CheckRepository.parsingURL(url.getName());
+                check.setUrlId(url.getId());
+                CheckRepository.saveCheckedUrl(check);
+            }
+
+            var checks = CheckRepository.getListCheck(url.getId());
+            assertThat(checks).hasSize(2);
+            assertThat(checks.get(1).getContentHash()).hasSize(64);
+            assertThat(checks.get(1).getLastSeenAt()).isNotNull();
+            assertThat(checks.get(0).getContentHash()).isNotEqualTo(checks.get(1).getContentHash());
+            assertThat(checks.get(0).getLastSeenAt()).isNull();
+        }
+    }
+
+    @Test
+    public void testCheckExtras() throws IOException {
+        try (var server = new MockWebServer()) {
+            server.enqueue(new MockResponse().setResponseCode(302).setHeader("Location", "/moved"));
+            server.enqueue(new MockResponse()
+                    .setBody(readFixture("index.html").replace("</head>", "<meta name=\"robots\" content=\"noindex\">"
+                            + "<link rel=\"canonical\" href=\"https://example.com/\"></head>"))
+                    .setHeader("Cache-Control", "no-cache"));
+            server.start();
+
+            var check = CheckRepository.parsingURL(server.url("/").toString());
+
+            assertThat(check.getTitle()).isEqualTo("Test page");
+            assertThat(check.getExtras()).contains("\"responseTimeMs\":", "\"redirects\":[\"" + server.url("/") + "\"]",
+                    "\"robots\":\"noindex\"", "\"canonical\":\"https://example.com/\"");
+        }
+    }
+
+    @Test
+    public void testHostsStatus() throws IOException {
+        try (var site = new MockWebServer()) {
+            site.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            site.start();
+            CheckRepository.parsingURL(site.url("/").toString());
+
+            JavalinTest.test(app, (server, client) -> {
+                var response = client.get(NamedRoutes.hostsStatusPath());
+                assertThat(response.code()).isEqualTo(200);
+                assertThat(response.body().string()).contains(site.getHostName(), "CLOSED");
+            });
+        }
+    }
+
+    @Test
+    public void testAsyncCheckJob() throws IOException, SQLException {
+        try (var site = new MockWebServer()) {
+            site.enqueue(new MockResponse().setBody(readFixture("index.html")));
+            site.start();
+            var url = new Url(site.url("/").toString(), new Timestamp(System.currentTimeMillis()));
+            UrlRepository.save(url);
+
+            JavalinTest.test(app, (server, client) -> {
+                var response = client.post(NamedRoutes.urlCheckPath(url.getId()), null,
+                        request -> request.header("Accept", "application/json"));
+                assertThat(response.code()).isEqualTo(202);
+                var location = response.header("Location");
+                assertThat(location).startsWith("/checks/jobs/");
+
+                String job = "";
+                for (int attempt = 0; attempt < 50 && !job.contains("SUCCEEDED"); attempt++) {
+                    Thread.sleep(100);
+                    job = client.get(location).body().string();
+                }
+                assertThat(job).contains("SUCCEEDED");
+                assertThat(CheckRepository.findLastCheck(url.getId()))
+                        .hasValueSatisfying(check -> assertThat(check.getTitle()).isEqualTo("Test page"));
+                assertThat(client.get(NamedRoutes.checkJobPath("unknown")).code()).isEqualTo(404);
+            });
+        }
+    }
+
+    @Test
+    public void testPoolStatus() {
+        JavalinTest.test(app, (server, client) -> {
+            client.get(NamedRoutes.listUrlsPath());
+            var response = client.get(NamedRoutes.poolStatusPath());
+            assertThat(response.code()).isEqualTo(200);
+            assertThat(response.body().string()).contains("\"active\"", "\"waiting\"", "\"acquire\"", "+Inf");
+        });
+    }
+
+    @Test
+    public void testPageCacheEtag() {
+        JavalinTest.test(app, (server, client) -> {
+            var first = client.get(NamedRoutes.listUrlsPath());
+            var etag = first.header("ETag");
+            assertThat(etag).startsWith("W/");
+
+            var notModified = client.get(NamedRoutes.listUrlsPath(), request -> request.header("If-None-Match", etag));
+            assertThat(notModified.code()).isEqualTo(304);
+
+            UrlRepository.save(new Url("https://cached.example.com", new Timestamp(System.currentTimeMillis())));
+            var changed = client.get(NamedRoutes.listUrlsPath(), request -> request.header("If-None-Match", etag));
+            assertThat(changed.code()).isEqualTo(200);
+            assertThat(changed.header("ETag")).isNotEqualTo(etag);
+            assertThat(changed.body().string()).contains("https://cached.example.com");
+        });
+    }
+
+    @Test
+    public void testApi() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Url> urls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            var url = new Url("https://api-" + i + ".example.com", now);
+            UrlRepository.save(url);
+            urls.add(url);
+        }
+        var check = new UrlCheck(200, "Title, \"quoted\"", "Heading", "Description", now);
+        check.setUrlId(urls.get(0).getId());
+        check.setExtras("{\"canonical\":\"/a\"}");
+        CheckRepository.saveCheckedUrl(check);
+        var other = new UrlCheck(404, "Other", "", "", now);
+        other.setUrlId(urls.get(1).getId());
+        CheckRepository.saveCheckedUrl(other);
+
+        JavalinTest.test(app, (server, client) -> {
+            var page = client.get(NamedRoutes.apiUrlsPath(0, 2)).body().string();
+            assertThat(page).contains("https://api-0.example.com", "https://api-1.example.com")
+                    .doesNotContain("https://api-2.example.com")
+                    .contains("after=" + urls.get(1).getId());
+
+            var checks = client.get(NamedRoutes.apiUrlChecksPath(String.valueOf(urls.get(0).getId())));
+            assertThat(checks.code()).isEqualTo(200);
+            assertThat(checks.body().string()).contains("\"statusCode\":200", "\"next\":null");
+
+            var ndjson = client.get(NamedRoutes.apiChecksExportPath()).body().string();
+            assertThat(ndjson.lines().count()).isEqualTo(2);
+            assertThat(ndjson.lines().allMatch(line -> line.startsWith("{\"id\":"))).isTrue();
+            assertThat(ndjson).contains("\"title\":\"Title, \\\"quoted\\\"\"", "\"statusCode\":404");
+
+            var csv = client.get(NamedRoutes.apiChecksExportPath() + "?format=csv").body().string();
+            assertThat(csv).startsWith("id,url_id,status_code").contains(",\"Title, \"\"quoted\"\"\",");
+            assertThat(csv.lines().findFirst().get()).endsWith(",content_hash,last_seen_at,extras");
+            assertThat(csv).contains(",\"{\"\"canonical\"\":\"\"/a\"\"}\"\n");
+            assertThat(ndjson).contains("\"extras\":{\"canonical\":\"/a\"}");
+            assertThat(client.get(NamedRoutes.apiChecksExportPath() + "?format=xml").code()).isEqualTo(400);
+        });
+
+        var busyApp = Javalin.create();
+        busyApp.get(NamedRoutes.apiChecksExportPath(), new ApiController(0)::exportChecks);
+        JavalinTest.test(busyApp, (server, client) -> {
+            var busy = client.get(NamedRoutes.apiChecksExportPath());
+            assertThat(busy.code()).isEqualTo(503);
+            assertThat(busy.header("Retry-After")).isEqualTo("30");
+        });
+    }
+
+    @Test
+    public void testUrlReadModel() throws SQLException {
+        var readModel = new UrlReadModel(100);
+        UrlRepository.setReadModel(readModel);
+        var url = new Url("https://read-model.example.com", new Timestamp(System.currentTimeMillis()));
+        UrlRepository.save(url);
+
+        assertThat(UrlRepository.find(url.getId()).get().getName()).isEqualTo("https://read-model.example.com");
+        assertThat(UrlRepository.saveIfAbsent(new Url(url.getName(), url.getCreatedAt()))).isFalse();
+        assertThat(readModel.getHits()).isEqualTo(2);
+
+        JavalinTest.test(app, (server, client) -> {
+            var page = client.get(NamedRoutes.urlPath(url.getId()));
+            assertThat(page.code()).isEqualTo(200);
+            assertThat(page.body().string()).contains("https://read-model.example.com");
+        });
+    }
+
+    @Test
+    public void testRetentionRollsUpOldChecks() throws SQLException {
+        var url = new Url("https://retention.example.com", new Timestamp(System.currentTimeMillis()));
+        UrlRepository.save(url);
+        var oldDay = LocalDate.now().minusDays(10);
+        String[] titles = {"First", "First", "Second"};
+        for (int i = 0; i < titles.length; i++) {
+            var check = new UrlCheck(i == 2 ? 500 : 200, titles[i], "", "",
+                    Timestamp.valueOf(oldDay.atTime(10 + i, 0)));
+            check.setUrlId(url.getId());
+            CheckRepository.saveCheckedUrl(check);
+        }
+        var recent = new UrlCheck(200, "Second", "", "", new Timestamp(System.currentTimeMillis()));
+        recent.setUrlId(url.getId());
+        CheckRepository.saveCheckedUrl(recent);
+
+        assertThat(new RetentionTask(7, 1).runOnce()).isEqualTo(3);
+
+        assertThat(CheckRepository.getListCheck(url.getId())).hasSize(1);
+        var days = CheckRepository.getCheckDays(url.getId(), 30);
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).getCheckDate().toLocalDate()).isEqualTo(oldDay);
+        assertThat(days.get(0).getChecks()).isEqualTo(3);
+        assertThat(days.get(0).getStatus2xx()).isEqualTo(2);
+        assertThat(days.get(0).getStatus5xx()).isEqualTo(1);
+        assertThat(days.get(0).getTitleChanges()).isEqualTo(1);
+
+        JavalinTest.test(app, (server, client) -> {
+            var page = client.get(NamedRoutes.urlPath(url.getId())).body().string();
+            assertThat(page).contains("По дням", oldDay.toString());
+        });
+    }
+
+    @Test
+    public void testRetentionKeepsLatestCheck() throws SQLException {
+        var url = new Url("https://retention-latest.example.com", new Timestamp(System.currentTimeMillis()));
+        UrlRepository.save(url);
+        var oldDay = LocalDate.now().minusDays(10);
+        for (int i = 0; i < 2; i++) {
+            var check = new UrlCheck(200, "Old", "", "", Timestamp.valueOf(oldDay.atTime(10 + i, 0)));
+            check.setUrlId(url.getId());
+            CheckRepository.saveCheckedUrl(check);
+        }
+
+        assertThat(new RetentionTask(7, 10).runOnce()).isEqualTo(1);
+        assertThat(CheckRepository.getListCheck(url.getId())).hasSize(1);
+        assertThat(CheckRepository.findLastCheck(url.getId()).get().getTitle()).isEqualTo("Old");
+
+        var recent = new UrlCheck(200, "New", "", "", new Timestamp(System.currentTimeMillis()));
+        recent.setUrlId(url.getId());
+        CheckRepository.saveCheckedUrl(recent);
+
+        assertThat(new RetentionTask(7, 10).runOnce()).isEqualTo(1);
+        var days = CheckRepository.getCheckDays(url.getId(), 30);
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).getChecks()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRetentionCountsRepeatedChecks() throws SQLException {
+        CheckRepository.setStoreOnChange(true);
+        var url = new Url("https://retention-repeated.example.com", new Timestamp(System.currentTimeMillis()));
+        UrlRepository.save(url);
+        var oldDay = LocalDate.now().minusDays(10);
+        for (int i = 0; i < 3; i++) {
+            var check = new UrlCheck(200, "Same", "", "", Timestamp.valueOf(oldDay.atTime(10 + i, 0)));
+            check.setUrlId(url.getId());
+            check.setContentHash("same");
+            CheckRepository.saveCheckedUrl(check);
+        }
+        var recent = new UrlCheck(200, "Changed", "", "", new Timestamp(System.currentTimeMillis()));
+        recent.setUrlId(url.getId());
+        recent.setContentHash("changed");
+        CheckRepository.saveCheckedUrl(recent);
+
+        assertThat(new RetentionTask(7, 10).runOnce()).isEqualTo(1);
+        var days = CheckRepository.getCheckDays(url.getId(), 30);
+        assertThat(days).hasSize(1);
+        assertThat(days.get(0).getChecks()).isEqualTo(3);
+        assertThat(days.get(0).getStatus2xx()).isEqualTo(3);
+    }
+
+    @Test
+    public void testMetricsEndpoint() {
+        JavalinTest.test(app, (server, client) -> {
+            client.get(NamedRoutes.listUrlsPath());
+            var response = client.get(NamedRoutes.metricsPath());
+            assertThat(response.code()).isEqualTo(200);
+            assertThat(response.body().string()).contains(
+                    "http_request_duration_seconds_count{method=\"GET\",route=\"/urls\"}",
+                    "http_responses_total{status=\"200\"}",
+                    "db_query_duration_seconds_count{query=\"UrlRepository.getPage\"}",
+                    "check_cache_hit_ratio");
+        });
+    }
+
+    @Test
+    public void testConfigReadsProperties() {
+        assertThat(AppConfig.get("db.prepare.threshold", "0")).isEqualTo("5");
+        assertThat(AppConfig.get("missing.key", "fallback")).isEqualTo("fallback");
+    }
+
     @Nested
     class UrlCheckTest {
         @Test
@@ -0,0 +1,61 @@
+package hexlet.code.check;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CheckCacheTest {
+    private static HttpHeaders headers(Map<String, String> values) {
+        return HttpHeaders.of(values.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> List.of(e.getValue()))),
+                (name, value) -> true);
+    }
+
+    private static CachedCheck check(String title) {
+        return new CachedCheck(200, title, "", "", null, null, null, null, null);
+    }
+
+    @Test
+    public void testTtlFromHeaders() {
+        var cache = new CheckCache(10, Duration.ofSeconds(60), Duration.ofHours(1));
+
+        assertThat(cache.ttl(headers(Map.of()))).isEqualTo(Duration.ofSeconds(60));
+        assertThat(cache.ttl(headers(Map.of("Cache-Control", "public, max-age=120")))).isEqualTo(Duration.ofMinutes(2));
+        assertThat(cache.ttl(headers(Map.of("Cache-Control", "max-age=86400")))).isEqualTo(Duration.ofHours(1));
+        assertThat(cache.ttl(headers(Map.of("Cache-Control", "no-store")))).isZero();
+        assertThat(cache.ttl(headers(Map.of(
+                "Date", "Wed, 21 Oct 2015 07:28:00 GMT",
+                "Expires", "Wed, 21 Oct 2015 07:38:00 GMT")))).isEqualTo(Duration.ofMinutes(10));
+        assertThat(cache.ttl(headers(Map.of("Expires", "0")))).isZero();
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        var cache = new CheckCache(2, Duration.ofSeconds(60), Duration.ofHours(1));
+        cache.put("https://a.com", check("a"), headers(Map.of()));
+        cache.put("https://b.com", check("b"), headers(Map.of()));
+        cache.get("https://a.com");
+        cache.put("https://c.com", check("c"), headers(Map.of()));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("https://a.com")).isPresent();
+        assertThat(cache.get("https://b.com")).isEmpty();
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSkipsUncacheableResponses() {
+        var cache = new CheckCache(2, Duration.ofSeconds(60), Duration.ofHours(1));
+        cache.put("https://a.com", check("a"), headers(Map.of("Cache-Control", "no-cache")));
+
+        assertThat(cache.get("https://a.com")).isEmpty();
+    }
+}
@@ -0,0 +1,40 @@
+package hexlet.code.check;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DeadlineInputStreamTest {
+    @Test
+    public void testBlockedReadFailsAtDeadline() throws Exception {
+        var closed = new CountDownLatch(1);
+        var stalled = new InputStream() {
+            @Override
+            public int read() {
+                try {
+                    closed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return -1;
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        long start = System.nanoTime();
+        var body = DeadlineInputStream.of(stalled, start + TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertThatThrownBy(body::read).isInstanceOf(HttpTimeoutException.class);
+        assertThat(closed.getCount()).isZero();
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+}
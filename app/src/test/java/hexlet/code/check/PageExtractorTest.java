@@ -0,0 +1,142 @@
+package hexlet.code.check;
+
+import hexlet.code.AppConfig;
+import hexlet.code.check.extractor.CanonicalLinkExtractor;
+import hexlet.code.check.extractor.ContentLengthExtractor;
+import hexlet.code.check.extractor.RedirectChainExtractor;
+import hexlet.code.check.extractor.ResponseTimeExtractor;
+import hexlet.code.check.extractor.RobotsMetaExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PageExtractorTest {
+    private static final PageExtractor EXTRACTOR = new PageExtractor(1024 * 1024);
+
+    private static PageSummary extract(String html, Charset charset) throws IOException {
+        return EXTRACTOR.extract(new ByteArrayInputStream(html.getBytes(charset)), null);
+    }
+
+    @Test
+    public void testExtract() throws IOException {
+        var html = "<html><head><!-- <title>comment</title> --><script>var s = '<h1>script</h1>';</script>"
+                + "<TITLE>Tom &amp; Jerry</TITLE><meta content='cat &lt;3 mouse' NAME=Description></head>"
+                + "<body><h1 class=main>Hello <b>world</b>\n  !</h1><h1>second</h1></body></html>";
+        var summary = extract(html, StandardCharsets.UTF_8);
+
+        assertThat(summary.getTitle()).isEqualTo("Tom & Jerry");
+        assertThat(summary.getH1()).isEqualTo("Hello world !");
+        assertThat(summary.getDescription()).isEqualTo("cat <3 mouse");
+    }
+
+    @Test
+    public void testMetaCharset() throws IOException {
+        var html = "<html><head><title>Привет</title><meta charset=\"windows-1251\"></head><body><h1>Мир</h1>";
+        var summary = extract(html, Charset.forName("windows-1251"));
+
+        assertThat(summary.getTitle()).isEqualTo("Привет");
+        assertThat(summary.getH1()).isEqualTo("Мир");
+    }
+
+    @Test
+    public void testByteCap() throws IOException {
+        var html = "<html><head><title>Title</title></head><body>" + "x".repeat(10_000) + "<h1>late</h1>";
+        var summary = new PageExtractor(1000)
+                .extract(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+        assertThat(summary.getTitle()).isEqualTo("Title");
+        assertThat(summary.getH1()).isEmpty();
+        assertThat(summary.getDescription()).isEmpty();
+    }
+
+    @Test
+    public void testDefaultConfigStopsEarly() throws IOException {
+        var extractor = new PageExtractor(AppConfig.getCheckMaxBytes(), AppConfig.isCheckFingerprints(), List.of());
+        var html = "<html><head><title>Title</title><meta name=description content=text></head>"
+                + "<body><h1>Header</h1>" + "<p>text</p>".repeat(100_000);
+        var body = new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
+        var summary = extractor.extract(body, StandardCharsets.UTF_8);
+
+        assertThat(summary.getH1()).isEqualTo("Header");
+        assertThat(body.available()).isGreaterThan(html.length() / 2);
+    }
+
+    @Test
+    public void testFingerprints() throws IOException {
+        var extractor = new PageExtractor(1024 * 1024, true, List.of());
+        var text = "<p>The quick brown fox jumps over the lazy dog near the river bank every morning</p>";
+        var page = "<html><head><title>Fox</title></head><body><h1>Fox</h1>" + text.repeat(20);
+        var same = extractor.extract(new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), null);
+        var again = extractor.extract(new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), null);
+        var edited = extractor.extract(new ByteArrayInputStream(
+                (page + "<p>fox</p><script>var nonce = 42;</script>").getBytes(StandardCharsets.UTF_8)), null);
+        var other = extractor.extract(new ByteArrayInputStream(
+                "<html><body><h1>Weather</h1><p>Rain and wind are expected over the hills tomorrow</p>"
+                        .getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(same.getContentHash()).hasSize(64).isEqualTo(again.getContentHash());
+        assertThat(same.getSimHash()).isEqualTo(again.getSimHash());
+        assertThat(edited.getContentHash()).isNotEqualTo(same.getContentHash());
+        assertThat(PageExtractor.distance(same.getSimHash(), edited.getSimHash())).isLessThan(4);
+        assertThat(PageExtractor.distance(same.getSimHash(), other.getSimHash())).isGreaterThan(10);
+        assertThat(EXTRACTOR.extract(new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), null)
+                .getContentHash()).isNull();
+    }
+
+    @Test
+    public void testExtractors() throws IOException {
+        var extractor = new PageExtractor(1024 * 1024, false, List.of(new ResponseTimeExtractor(),
+                new ContentLengthExtractor(), new RedirectChainExtractor(), new CanonicalLinkExtractor(),
+                new RobotsMetaExtractor()));
+        var html = "<html><head><title>Title</title><link rel=\"alternate canonical\" href=\"/a?x=1&amp;y=2\">"
+                + "<meta name=ROBOTS content=\"noindex, follow\"><meta name=description content=text></head>"
+                + "<body><h1>Header</h1><link rel=canonical href=/late></body></html>";
+        var page = new FetchedPage(URI.create("https://example.com/a"), 200,
+                HttpHeaders.of(Map.of("Content-Length", List.of("123")), (name, value) -> true),
+                new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)),
+                List.of(URI.create("http://example.com/")), Duration.ofMillis(42), null);
+        var summary = extractor.extract(page);
+
+        assertThat(summary.getTitle()).isEqualTo("Title");
+        assertThat(summary.getData()).isEqualTo(Map.of(
+                "responseTimeMs", 42L,
+                "contentLength", 123L,
+                "redirects", List.of("http://example.com/"),
+                "finalUrl", "https://example.com/a",
+                "canonical", "/a?x=1&y=2",
+                "robots", "noindex, follow"));
+    }
+
+    @Test
+    public void testRevalidateKeepsBodyData() {
+        var extractor = new PageExtractor(1024 * 1024, false, List.of(new ResponseTimeExtractor(),
+                new RedirectChainExtractor(), new CanonicalLinkExtractor()));
+        var page = new FetchedPage(URI.create("https://example.com/a"), 304,
+                HttpHeaders.of(Map.of(), (name, value) -> true), new ByteArrayInputStream(new byte[0]),
+                List.of(), Duration.ofMillis(7), null);
+        Map<String, Object> previous = Map.of("responseTimeMs", 42L, "redirects", List.of("http://example.com/"),
+                "finalUrl", "https://example.com/a", "canonical", "/a");
+
+        assertThat(extractor.revalidate(page, previous)).isEqualTo(Map.of("responseTimeMs", 7L, "canonical", "/a"));
+        assertThat(extractor.withoutResponseData(previous)).isEqualTo(Map.of("canonical", "/a"));
+    }
+
+    @Test
+    public void testUnclosedFieldFallsBackToJsoup() throws IOException {
+        var summary = extract("<html><head><title>Title</title></head><body><h1>Header<h2>Next</h2><p>text</p>",
+                StandardCharsets.UTF_8);
+
+        assertThat(summary.getTitle()).isEqualTo("Title");
+        assertThat(summary.getH1()).isEqualTo("Header");
+    }
+}
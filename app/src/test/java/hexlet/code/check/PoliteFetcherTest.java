@@ -0,0 +1,98 @@
+package hexlet.code.check;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PoliteFetcherTest {
+    private static final String URL = "https://example.com";
+
+    private static final class StubFetcher implements PageFetcher {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int statusCode = 500;
+
+        @Override
+        public CompletableFuture<FetchedPage> fetch(String url, Map<String, String> headers) {
+            calls.incrementAndGet();
+            var page = new FetchedPage(URI.create(url), statusCode, HttpHeaders.of(Map.of(), (name, value) -> true),
+                    InputStream.nullInputStream());
+            return CompletableFuture.completedFuture(page);
+        }
+    }
+
+    @Test
+    public void testCircuitOpensAndRecovers() throws InterruptedException {
+        var stub = new StubFetcher();
+        var fetcher = new PoliteFetcher(stub, 1000, 100, 2, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+        fetcher.fetch(URL).join();
+        fetcher.fetch(URL).join();
+        assertThat(fetcher.getGuards().get(0).getState()).isEqualTo(HostGuard.State.OPEN);
+        assertThatThrownBy(() -> fetcher.fetch(URL).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(HostUnavailableException.class);
+        assertThat(stub.calls.get()).isEqualTo(2);
+
+        Thread.sleep(150);
+        stub.statusCode = 200;
+        fetcher.fetch(URL).join();
+        assertThat(fetcher.getGuards().get(0).getState()).isEqualTo(HostGuard.State.CLOSED);
+        assertThat(stub.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRateLimitDelaysRequests() {
+        var stub = new StubFetcher();
+        stub.statusCode = 200;
+        var fetcher = new PoliteFetcher(stub, 20, 1, 5, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        long start = System.nanoTime();
+        fetcher.fetch(URL).join();
+        fetcher.fetch(URL).join();
+        fetcher.fetch(URL).join();
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(elapsed).isGreaterThanOrEqualTo(90);
+        assertThat(stub.calls.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRateLimitRejectsLongWaits() {
+        var stub = new StubFetcher();
+        stub.statusCode = 200;
+        var fetcher = new PoliteFetcher(stub, 1, 1, 5, Duration.ofSeconds(1), Duration.ofMillis(100));
+
+        fetcher.fetch(URL).join();
+        assertThatThrownBy(() -> fetcher.fetch(URL).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(HostUnavailableException.class);
+        assertThat(stub.calls.get()).isEqualTo(1);
+        assertThat(fetcher.getGuards().get(0).getState()).isEqualTo(HostGuard.State.CLOSED);
+    }
+
+    @Test
+    public void testIdleGuardsAreRemoved() throws InterruptedException {
+        var stub = new StubFetcher();
+        var fetcher = new PoliteFetcher(stub, 1000, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        stub.statusCode = 200;
+        fetcher.fetch("https://idle.example.com").join();
+        stub.statusCode = 500;
+        fetcher.fetch("https://failing.example.com").join();
+
+        Thread.sleep(20);
+        fetcher.removeIdleGuards();
+
+        assertThat(fetcher.getGuards()).hasSize(1);
+        assertThat(fetcher.getGuards().get(0).getHost()).isEqualTo("failing.example.com");
+    }
+}
@@ -0,0 +1,41 @@
+package hexlet.code.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+public class HistogramTest {
+    @Test
+    public void testBuckets() {
+        var histogram = new Histogram(new double[] {0.001, 0.01});
+
+        histogram.recordNanos(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.recordNanos(TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(histogram.getCumulativeCounts()).containsExactly(2, 3, 4);
+        assertThat(histogram.getCount()).isEqualTo(4);
+        assertThat(histogram.getSumSeconds()).isCloseTo(1.0065, offset(1e-9));
+
+        Histogram.latencyBuckets()[0] = 100;
+        assertThat(Histogram.latencyBuckets()[0]).isEqualTo(0.0005);
+    }
+
+    @Test
+    public void testScrape() {
+        var histogram = Metrics.histogram("test_duration_seconds", "Test histogram", Metrics.labels("name", "a\"b"));
+        histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        Metrics.counter("test_total", "Test counter", "").add(3);
+
+        String text = Metrics.scrape();
+        assertThat(text).contains(
+                "# TYPE test_duration_seconds histogram",
+                "test_duration_seconds_bucket{name=\"a\\\"b\",le=\"+Inf\"} 1",
+                "test_duration_seconds_count{name=\"a\\\"b\"} 1",
+                "test_total 3");
+    }
+}
@@ -0,0 +1,82 @@
+package hexlet.code.repository;
+
+import hexlet.code.model.Url;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UrlReadModelTest {
+    private static Url url(long id) {
+        var url = new Url("https://" + id + ".example.com", new Timestamp(0));
+        url.setId(id);
+        return url;
+    }
+
+    @Test
+    public void testFindsByIdAndName() {
+        var readModel = new UrlReadModel(10);
+        readModel.put(url(7));
+
+        assertThat(readModel.find(7).get().getName()).isEqualTo("https://7.example.com");
+        assertThat(readModel.findByName("https://7.example.com").get().getId()).isEqualTo(7);
+        assertThat(readModel.find(8).isPresent()).isFalse();
+        assertThat(readModel.getHits()).isEqualTo(2);
+        assertThat(readModel.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReturnsCopies() {
+        var readModel = new UrlReadModel(10);
+        readModel.put(url(1));
+        readModel.find(1).get().setName("changed");
+
+        assertThat(readModel.find(1).get().getName()).isEqualTo("https://1.example.com");
+    }
+
+    @Test
+    public void testStaysBounded() {
+        var readModel = new UrlReadModel(100);
+        for (long id = 1; id <= 10_000; id++) {
+            readModel.put(url(id));
+        }
+
+        assertThat(readModel.size()).isEqualTo(100);
+        assertThat(readModel.getEvictions()).isEqualTo(9_900);
+        long found = 0;
+        for (long id = 1; id <= 10_000; id++) {
+            if (readModel.find(id).isPresent()) {
+                assertThat(readModel.findByName("https://" + id + ".example.com").isPresent()).isTrue();
+                found++;
+            }
+        }
+        assertThat(found).isEqualTo(100);
+        assertThat(readModel.find(10_000).isPresent()).isTrue();
+    }
+
+    @Test
+    public void testKeepsReferencedEntries() {
+        var readModel = new UrlReadModel(10);
+        for (long id = 1; id <= 10; id++) {
+            readModel.put(url(id));
+        }
+        for (long id = 11; id <= 40; id++) {
+            assertThat(readModel.find(3).isPresent()).isTrue();
+            readModel.put(url(id));
+        }
+
+        assertThat(readModel.find(3).isPresent()).isTrue();
+        assertThat(readModel.find(1).isPresent()).isFalse();
+        assertThat(readModel.size()).isEqualTo(10);
+    }
+
+    @Test
+    public void testDisabled() {
+        var readModel = new UrlReadModel(0);
+        readModel.put(url(1));
+
+        assertThat(readModel.isEnabled()).isFalse();
+        assertThat(readModel.find(1).isPresent()).isFalse();
+    }
+}
@@ -0,0 +1,55 @@
+package hexlet.code.util;
+
+import io.javalin.http.HandlerType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdmissionControllerTest {
+    private static final String ROUTE = "GET /urls";
+
+    @Test
+    public void testRouteLimit() {
+        var admission = new AdmissionController(2, 10, () -> 0, () -> false);
+
+        assertThat(admission.admit(ROUTE, false)).isNull();
+        assertThat(admission.admit(ROUTE, false)).isNull();
+        assertThat(admission.admit(ROUTE, false)).isNotNull();
+        assertThat(admission.admit("GET /urls/{id}", false)).isNull();
+        assertThat(admission.getInFlight(ROUTE)).isEqualTo(2);
+
+        admission.release(ROUTE);
+        assertThat(admission.admit(ROUTE, false)).isNull();
+    }
+
+    @Test
+    public void testSaturation() {
+        var awaiting = new AtomicInteger();
+        var checkerFull = new AtomicBoolean();
+        var admission = new AdmissionController(10, 3, awaiting::get, checkerFull::get);
+
+        awaiting.set(4);
+        assertThat(admission.admit(ROUTE, false)).isEqualTo("Database is overloaded");
+        awaiting.set(0);
+
+        checkerFull.set(true);
+        assertThat(admission.admit(ROUTE, false)).isNull();
+        assertThat(admission.admit("POST /urls/{id}/checks", true)).isEqualTo("Check queue is full");
+        assertThat(admission.getInFlight("POST /urls/{id}/checks")).isZero();
+    }
+
+    @Test
+    public void testMatchedPaths() {
+        assertThat(AdmissionController.isExempt(NamedRoutes.metricsPath())).isTrue();
+        assertThat(AdmissionController.isExempt(NamedRoutes.poolStatusPath())).isTrue();
+        assertThat(AdmissionController.isExempt(NamedRoutes.hostsStatusPath())).isTrue();
+        assertThat(AdmissionController.isExempt("")).isTrue();
+        assertThat(AdmissionController.isExempt(NamedRoutes.urlCheckPath("{id}"))).isFalse();
+
+        assertThat(AdmissionController.startsCheck(HandlerType.POST, NamedRoutes.urlCheckPath("{id}"))).isTrue();
+        assertThat(AdmissionController.startsCheck(HandlerType.POST, NamedRoutes.urlsChecksPath())).isFalse();
+    }
+}